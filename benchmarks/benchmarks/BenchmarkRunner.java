@@ -0,0 +1,372 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * A small benchmark harness in the spirit of JMH: every benchmark is run for warmup iterations
+ * (to let the JIT compile it) and then for measured iterations of a fixed time, and its
+ * throughput is reported.<br/>
+ * Like the forks of JMH, every benchmark runs in a fresh JVM by default, so its score depends
+ * neither on the benchmarks that ran before it nor on the profile that they left in the JIT
+ * (e.g. the call site of the operations, that sees one operation only).<br/>
+ * The results are written as JSON in the format of JMH ({@code -rf json}), so they can be
+ * compared across commits by the same tools.
+ * <p>
+ * Usage: {@code java benchmarks.BenchmarkRunner [-o results.json] [-f regex] [-wi 5] [-i 5] [-t 1000] [-forks 1]}
+ */
+public class BenchmarkRunner {
+    /**
+     * A benchmarked operation
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Runs the operation once
+         *
+         * @return the result of the operation, consumed by the runner so it is not optimized away
+         */
+        Object run();
+    }
+
+    /**
+     * A registered benchmark
+     *
+     * @param name      the full name of the benchmark
+     * @param params    the parameters of the benchmark (for the report)
+     * @param operation the benchmarked operation
+     */
+    private record Benchmark(String name, Map<String, String> params, Operation operation) {
+    }
+
+    /**
+     * The result of a benchmark
+     *
+     * @param benchmark the benchmark
+     * @param scores    the throughput (operations per second) of every measured iteration of every fork
+     */
+    private record Result(Benchmark benchmark, double[][] scores) {
+    }
+
+    /** The prefix of the line by which a forked JVM reports its scores */
+    private static final String SCORES = "# Scores:";
+
+    /**
+     * Sink of the results of the operations - the results escape into it, so the JIT can
+     * neither remove the operations as dead code nor eliminate their allocations
+     */
+    private static final Object[] SINK = new Object[16];
+
+    /**
+     * The least time of a batch of operations (in nanoseconds) - the clock is read once per
+     * batch, so the time of reading it is negligible to the time of the operations
+     */
+    private static final long BATCH_NANOS = 1_000_000;
+
+    private final List<Benchmark> benchmarks = new ArrayList<>();
+    private int warmupIterations = 5;
+    private int measurementIterations = 5;
+    private long iterationMillis = 1000;
+    /** The amount of the JVMs that every benchmark runs in, 0 to run the benchmarks in this JVM */
+    private int forks = 1;
+    /** The amount of the operations in a batch of the running benchmark, grown during its warmup */
+    private int batch;
+
+    /**
+     * Registers a benchmark without parameters
+     *
+     * @param name      the full name of the benchmark
+     * @param operation the benchmarked operation
+     * @return the runner itself, allowing for method chaining
+     */
+    public BenchmarkRunner add(String name, Operation operation) {
+        return add(name, Map.of(), operation);
+    }
+
+    /**
+     * Registers a benchmark
+     *
+     * @param name      the full name of the benchmark
+     * @param params    the parameters of the benchmark (for the report)
+     * @param operation the benchmarked operation
+     * @return the runner itself, allowing for method chaining
+     */
+    public BenchmarkRunner add(String name, Map<String, String> params, Operation operation) {
+        // sorted, for a stable order of the parameters in the report
+        benchmarks.add(new Benchmark(name, new TreeMap<>(params), operation));
+        return this;
+    }
+
+    /**
+     * Runs one benchmark iteration. The operations run in batches, and the time is measured
+     * per batch rather than per operation; the batch doubles until it takes at least
+     * {@link #BATCH_NANOS}.
+     *
+     * @param operation the benchmarked operation
+     * @return the throughput in operations per second
+     */
+    private double iteration(Operation operation) {
+        long start = System.nanoTime();
+        long deadline = start + iterationMillis * 1_000_000;
+        long operations = 0;
+        long now = start;
+        do {
+            long batchStart = now;
+            int size = batch;
+            for (int i = 0; i < size; ++i)
+                SINK[i & (SINK.length - 1)] = operation.run();
+            operations += size;
+            now = System.nanoTime();
+            if (now - batchStart < BATCH_NANOS && size < 1 << 30)
+                batch = size * 2;
+        } while (now < deadline);
+        return operations * 1e9 / (now - start);
+    }
+
+    /**
+     * Runs the warmup and the measured iterations of a benchmark in this JVM
+     *
+     * @param benchmark the benchmark
+     * @return the throughput of every measured iteration
+     */
+    private double[] measure(Benchmark benchmark) {
+        batch = 1;
+        for (int i = 1; i <= warmupIterations; ++i)
+            System.out.printf("# Warmup Iteration %2d: %.3f ops/s%n", i, iteration(benchmark.operation()));
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; ++i) {
+            scores[i] = iteration(benchmark.operation());
+            System.out.printf("Iteration %2d: %.3f ops/s%n", i + 1, scores[i]);
+        }
+        return scores;
+    }
+
+    /**
+     * Runs a benchmark in a new JVM, with the class path and the options of this JVM
+     *
+     * @param index the index of the benchmark
+     * @return the throughput of every measured iteration
+     * @throws IOException if the JVM cannot be started or fails
+     */
+    private double[] fork(int index) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), BenchmarkRunner.class.getName(),
+                "-wi", String.valueOf(warmupIterations), "-i", String.valueOf(measurementIterations),
+                "-t", String.valueOf(iterationMillis), "-run", String.valueOf(index)));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        double[] scores = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SCORES))
+                    scores = Arrays.stream(line.substring(SCORES.length()).trim().split(" "))
+                            .mapToDouble(Double::parseDouble).toArray();
+                else
+                    System.out.println(line);
+            }
+        }
+        try {
+            if (process.waitFor() != 0 || scores == null)
+                throw new IOException("The forked JVM of benchmark " + benchmarks.get(index).name() + " failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the forked JVM", e);
+        }
+        return scores;
+    }
+
+    /**
+     * Runs all the benchmarks whose names match a filter
+     *
+     * @param filter the filter of the benchmark names
+     * @return the results
+     * @throws IOException if a forked JVM fails
+     */
+    private List<Result> run(Pattern filter) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (int index = 0; index < benchmarks.size(); ++index) {
+            Benchmark benchmark = benchmarks.get(index);
+            if (!filter.matcher(benchmark.name()).find()) continue;
+            System.out.println("# Benchmark: " + benchmark.name() + (benchmark.params().isEmpty() ? "" : " " + benchmark.params()));
+            double[][] scores = new double[Math.max(1, forks)][];
+            if (forks == 0)
+                scores[0] = measure(benchmark);
+            for (int fork = 0; fork < forks; ++fork) {
+                System.out.println("# Fork: " + (fork + 1) + " of " + forks);
+                scores[fork] = fork(index);
+            }
+            results.add(new Result(benchmark, scores));
+        }
+        return results;
+    }
+
+    /**
+     * Joins the scores of all the forks
+     *
+     * @param scores the scores of every fork
+     * @return all the scores
+     */
+    private static double[] all(double[][] scores) {
+        return Arrays.stream(scores).flatMapToDouble(Arrays::stream).toArray();
+    }
+
+    /**
+     * Calculates the mean of scores
+     *
+     * @param scores the scores
+     * @return the mean
+     */
+    private static double mean(double[] scores) {
+        double sum = 0;
+        for (double score : scores) sum += score;
+        return sum / scores.length;
+    }
+
+    /**
+     * Calculates the error of the mean of scores (the half width of its 99.9% confidence interval,
+     * by the normal approximation)
+     *
+     * @param scores the scores
+     * @return the error, NaN for a single score
+     */
+    private static double error(double[] scores) {
+        if (scores.length < 2) return Double.NaN;
+        double mean = mean(scores);
+        double sum = 0;
+        for (double score : scores) sum += (score - mean) * (score - mean);
+        return 3.29 * Math.sqrt(sum / (scores.length - 1) / scores.length);
+    }
+
+    /**
+     * Formats a number for JSON
+     *
+     * @param value the number
+     * @return the JSON number, or the string "NaN"
+     */
+    private static String json(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : Double.toString(value);
+    }
+
+    /**
+     * Writes the results as JSON in the JMH format
+     *
+     * @param results the results
+     * @param writer  the output
+     * @throws IOException if writing fails
+     */
+    private void writeJson(List<Result> results, Writer writer) throws IOException {
+        writer.write("[\n");
+        for (int r = 0; r < results.size(); ++r) {
+            Result result = results.get(r);
+            writer.write("    {\n");
+            writer.write("        \"jmhVersion\" : \"none\",\n");
+            writer.write("        \"benchmark\" : \"" + result.benchmark().name() + "\",\n");
+            writer.write("        \"mode\" : \"thrpt\",\n");
+            writer.write("        \"threads\" : 1,\n");
+            writer.write("        \"forks\" : " + forks + ",\n");
+            writer.write("        \"jvm\" : \"" + System.getProperty("java.home").replace("\\", "\\\\") + "\",\n");
+            writer.write("        \"jdkVersion\" : \"" + System.getProperty("java.version") + "\",\n");
+            writer.write("        \"warmupIterations\" : " + warmupIterations + ",\n");
+            writer.write("        \"warmupTime\" : \"" + iterationMillis + " ms\",\n");
+            writer.write("        \"measurementIterations\" : " + measurementIterations + ",\n");
+            writer.write("        \"measurementTime\" : \"" + iterationMillis + " ms\",\n");
+            if (!result.benchmark().params().isEmpty()) {
+                writer.write("        \"params\" : {\n");
+                int p = 0;
+                for (var param : result.benchmark().params().entrySet())
+                    writer.write("            \"" + param.getKey() + "\" : \"" + param.getValue() + "\""
+                            + (++p < result.benchmark().params().size() ? "," : "") + "\n");
+                writer.write("        },\n");
+            }
+            double[] scores = all(result.scores());
+            writer.write("        \"primaryMetric\" : {\n");
+            writer.write("            \"score\" : " + json(mean(scores)) + ",\n");
+            writer.write("            \"scoreError\" : " + json(error(scores)) + ",\n");
+            writer.write("            \"scoreUnit\" : \"ops/s\",\n");
+            // one array of scores per fork, as in JMH
+            writer.write("            \"rawData\" : [\n");
+            for (int f = 0; f < result.scores().length; ++f) {
+                double[] forkScores = result.scores()[f];
+                writer.write("                [\n");
+                for (int i = 0; i < forkScores.length; ++i)
+                    writer.write("                    " + json(forkScores[i]) + (i < forkScores.length - 1 ? "," : "") + "\n");
+                writer.write("                ]" + (f < result.scores().length - 1 ? "," : "") + "\n");
+            }
+            writer.write("            ]\n");
+            writer.write("        },\n");
+            writer.write("        \"secondaryMetrics\" : {\n        }\n");
+            writer.write("    }" + (r < results.size() - 1 ? "," : "") + "\n");
+        }
+        writer.write("]\n");
+    }
+
+    /**
+     * Runs the benchmark suite
+     *
+     * @param args {@code -o} output JSON file (default jmh-result.json), {@code -f} regular expression
+     *             filter of the benchmark names, {@code -wi} warmup iterations, {@code -i} measurement
+     *             iterations, {@code -t} iteration time in milliseconds, {@code -forks} the amount of
+     *             the JVMs of every benchmark (0 runs all the benchmarks in this JVM)
+     * @throws IOException if the results cannot be written or a forked JVM fails
+     */
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        String output = "jmh-result.json";
+        Pattern filter = Pattern.compile("");
+        int run = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-o" -> output = args[i + 1];
+                case "-f" -> filter = Pattern.compile(args[i + 1]);
+                case "-wi" -> runner.warmupIterations = Integer.parseInt(args[i + 1]);
+                case "-i" -> runner.measurementIterations = Integer.parseInt(args[i + 1]);
+                case "-t" -> runner.iterationMillis = Long.parseLong(args[i + 1]);
+                case "-forks" -> runner.forks = Integer.parseInt(args[i + 1]);
+                // a forked JVM runs one benchmark, and reports its scores to the parent JVM
+                case "-run" -> run = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        PrimitivesBenchmarks.register(runner);
+        IntersectionBenchmarks.register(runner);
+        RenderBenchmarks.register(runner);
+
+        if (run >= 0) {
+            StringBuilder scores = new StringBuilder(SCORES);
+            for (double score : runner.measure(runner.benchmarks.get(run)))
+                scores.append(' ').append(score);
+            System.out.println(scores);
+            return;
+        }
+
+        List<Result> results = runner.run(filter);
+        try (Writer writer = new FileWriter(output)) {
+            runner.writeJson(results, writer);
+        }
+
+        System.out.println();
+        System.out.printf("%-70s %15s %12s%n", "Benchmark", "Score", "Error");
+        for (Result result : results) {
+            Map<String, String> params = result.benchmark().params();
+            System.out.printf("%-70s %15.3f %12.3f  ops/s%n",
+                    result.benchmark().name() + (params.isEmpty() ? "" : ":" + params.values()),
+                    mean(all(result.scores())), error(all(result.scores())));
+        }
+        System.out.println("Results written to " + output);
+    }
+}
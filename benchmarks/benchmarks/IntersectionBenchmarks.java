@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.util.Map;
+
+import geometries.*;
+import primitives.*;
+
+/**
+ * Benchmarks of the intersections of a ray with every shape, for a ray that hits the shape
+ * and for a ray that misses it
+ */
+public class IntersectionBenchmarks {
+    /**
+     * Registers the benchmarks of one shape
+     *
+     * @param runner   the benchmark runner
+     * @param shape    the name of the shape
+     * @param geometry the shape
+     * @param hit      a ray that hits the shape
+     * @param miss     a ray that misses the shape
+     */
+    private static void register(BenchmarkRunner runner, String shape, Intersectable geometry, Ray hit, Ray miss) {
+        runner.add("geometries." + shape + ".findGeoIntersections", Map.of("ray", "hit"),
+                        () -> geometry.findGeoIntersections(hit))
+                .add("geometries." + shape + ".findGeoIntersections", Map.of("ray", "miss"),
+                        () -> geometry.findGeoIntersections(miss))
+                .add("geometries." + shape + ".findClosestIntersection", Map.of("ray", "hit"),
+                        () -> geometry.findClosestIntersection(hit));
+    }
+
+    /**
+     * Registers the benchmarks
+     *
+     * @param runner the benchmark runner
+     */
+    public static void register(BenchmarkRunner runner) {
+        Point origin = new Point(0.1, 0.2, 10);
+        Ray hit = new Ray(origin, new Vector(0.01, -0.02, -1));
+        Ray miss = new Ray(origin, new Vector(1, 1, -1));
+
+        register(runner, "Sphere", new Sphere(2, new Point(0, 0, 0)), hit, miss);
+        register(runner, "Plane", new Plane(new Point(0, 0, 0), new Vector(0, 0.2, 1)), hit,
+                new Ray(origin, new Vector(1, 1, 0.5)));
+        register(runner, "Triangle",
+                new Triangle(new Point(-2, -2, 0), new Point(2, -2, 0), new Point(0, 2, 0)), hit, miss);
+        register(runner, "Polygon",
+                new Polygon(new Point(-2, -2, 0), new Point(2, -2, 0), new Point(2, 2, 0), new Point(-2, 2, 0)),
+                hit, miss);
+
+        // closest intersections in a flat list and in a hierarchy of many spheres and triangles,
+        // cycling through rays that spread over the whole grid
+        Geometries flat = new Geometries();
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 30; ++j)
+                flat.add(new Sphere(1.5, new Point(i * 4 - 60, j * 4 - 60, 0)),
+                        new Triangle(new Point(i * 4 - 60, j * 4 - 58, 3), new Point(i * 4 - 58, j * 4 - 58, 3),
+                                new Point(i * 4 - 59, j * 4 - 56, 3)));
+        Geometries grid = new Geometries(flat);
+        Intersectable compiled = new CompiledGeometries(grid);
+        grid.buildBVH();
+        Ray[] rays = new Ray[1024];
+        for (int i = 0; i < rays.length; ++i)
+            rays[i] = new Ray(new Point(0, 0, 100), new Vector(i % 32 * 0.04 - 0.62, i / 32 * 0.04 - 0.62, -1));
+        registerClosest(runner, "flat", flat, rays);
+        registerClosest(runner, "bvh", grid, rays);
+        registerClosest(runner, "compiled", compiled, rays);
+
+        // a cluster of overlapping spheres and triangles, that no hierarchy can separate - the
+        // leaves of the compiled geometries are full
+        Geometries cluster = new Geometries();
+        for (int i = 0; i < 32; ++i)
+            cluster.add(new Sphere(5 + i % 5 * 0.2, new Point(i % 4 * 0.3, i / 4 % 4 * 0.3, i / 16 * 0.3)),
+                    new Triangle(new Point(-10 + i % 3, -10, -10 - i * 0.15), new Point(10, -10 + i % 5, -10 - i * 0.15),
+                            new Point(0, 10, -10 - i % 7 * 0.7)));
+        Ray[] clusterRays = new Ray[1024];
+        for (int i = 0; i < clusterRays.length; ++i)
+            clusterRays[i] = new Ray(new Point(0, 0, 20),
+                    new Vector(i % 32 * 0.02 - 0.31, i / 32 * 0.02 - 0.31, -1));
+        registerClosest(runner, "cluster-compiled", new CompiledGeometries(cluster), clusterRays);
+
+        // the same rays in packets of 8 x 8 neighbouring rays, one packet per operation
+        Ray[][] packets = new Ray[rays.length / 64][64];
+        for (int i = 0; i < rays.length; ++i) {
+            int row = i / 32, col = i % 32;
+            packets[row / 8 * 4 + col / 8][row % 8 * 8 + col % 8] = rays[i];
+        }
+        registerPackets(runner, "flat", flat, packets);
+        registerPackets(runner, "bvh", grid, packets);
+    }
+
+    /**
+     * Registers the benchmark of the closest intersections of rays with a layout of geometries
+     *
+     * @param runner     the benchmark runner
+     * @param layout     the name of the layout
+     * @param geometries the geometries
+     * @param rays       the rays, one ray per operation
+     */
+    private static void registerClosest(BenchmarkRunner runner, String layout, Intersectable geometries,
+                                        Ray[] rays) {
+        int[] next = {0};
+        runner.add("geometries.Geometries.findClosestIntersection", Map.of("layout", layout), () -> {
+            int index = next[0];
+            next[0] = index + 1 == rays.length ? 0 : index + 1;
+            return geometries.findClosestIntersection(rays[index]);
+        });
+    }
+
+    /**
+     * Registers the benchmark of the closest intersections of packets of rays with a layout of
+     * geometries - an operation traces 64 rays, so its score is compared to 1/64 of the score of
+     * a single ray
+     *
+     * @param runner     the benchmark runner
+     * @param layout     the name of the layout
+     * @param geometries the geometries
+     * @param packets    the packets of rays, one packet per operation
+     */
+    private static void registerPackets(BenchmarkRunner runner, String layout, Geometries geometries,
+                                        Ray[][] packets) {
+        RayPacket packet = new RayPacket(64);
+        int[] next = {0};
+        runner.add("geometries.Geometries.findClosestIntersections", Map.of("layout", layout, "packet", "64"),
+                () -> {
+                    int index = next[0];
+                    next[0] = index + 1 == packets.length ? 0 : index + 1;
+                    packet.load(packets[index], 64);
+                    geometries.findClosestIntersections(packet);
+                    return packet.getClosest(63);
+                });
+    }
+}
@@ -0,0 +1,34 @@
+package benchmarks;
+
+import primitives.*;
+
+/**
+ * Microbenchmarks of the basic vector math of {@link Double3}, {@link Point} and {@link Vector}
+ */
+public class PrimitivesBenchmarks {
+    /**
+     * Registers the benchmarks
+     *
+     * @param runner the benchmark runner
+     */
+    public static void register(BenchmarkRunner runner) {
+        Double3 d1 = new Double3(1.5, -2.25, 3.125);
+        Double3 d2 = new Double3(0.5, 4, -1.75);
+        Point p1 = new Point(1, 2, 3);
+        Point p2 = new Point(-4, 5.5, 0.25);
+        Vector v1 = new Vector(1, -2, 3.5);
+        Vector v2 = new Vector(-0.5, 4, 1);
+
+        runner.add("primitives.Double3.add", () -> d1.add(d2))
+                .add("primitives.Double3.product", () -> d1.product(d2))
+                .add("primitives.Double3.scale", () -> d1.scale(1.5))
+                .add("primitives.Point.add", () -> p1.add(v1))
+                .add("primitives.Point.subtract", () -> p1.subtract(p2))
+                .add("primitives.Point.distanceSquared", () -> p1.distanceSquared(p2))
+                .add("primitives.Vector.scale", () -> v1.scale(2.5))
+                .add("primitives.Vector.dotProduct", () -> v1.dotProduct(v2))
+                .add("primitives.Vector.crossProduct", () -> v1.crossProduct(v2))
+                .add("primitives.Vector.normalize", v1::normalize)
+                .add("primitives.Ray.getPoint", () -> new Ray(p1, v1).getPoint(7.5));
+    }
+}
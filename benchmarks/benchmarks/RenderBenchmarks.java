@@ -0,0 +1,251 @@
+package benchmarks;
+
+import static java.awt.Color.*;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+/**
+ * Benchmarks of ray tracing on the scenes of the reflection and refraction tests:
+ * tracing single rays through the whole image ({@link RayTracerBasic#traceRay(Ray)}),
+ * and rendering full images at several thread counts ({@link Camera#renderImage()}),
+ * and of many small concurrent renders, by cameras that create their own threads versus
+ * cameras that share one bounded executor
+ */
+public class RenderBenchmarks {
+    /** Resolution of the traced ray grid and of the rendered images */
+    private static final int RESOLUTION = 128;
+    /** Thread counts of the render benchmarks, 0 is the sequential render */
+    private static final int[] THREADS = {0, 1, 2, 4};
+    /** Amount of the concurrent renders of one operation of the concurrent benchmarks */
+    private static final int CONCURRENT_RENDERS = 100;
+    /** Resolution of the concurrent renders */
+    private static final int THUMBNAIL_RESOLUTION = 256;
+
+    /**
+     * Creates the scene of two spheres, one inside the other (refractionTwoSpheres)
+     *
+     * @param scene the scene to fill
+     * @return the camera of the scene, without image writer and ray tracer
+     */
+    private static Camera twoSpheres(Scene scene) {
+        scene.geometries.add( //
+                new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().withKd(0.4).withKs(0.3).withShininess(100).withKt(0.3)),
+                new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED)) //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(100)));
+        scene.lights.add( //
+                new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2)) //
+                        .setKl(0.0004).setKq(0.0000006));
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPSize(150, 150).setVPDistance(1000);
+    }
+
+    /**
+     * Creates the scene of two spheres reflected by two mirrors (reflectionTwoSpheresMirrored)
+     *
+     * @param scene the scene to fill
+     * @return the camera of the scene, without image writer and ray tracer
+     */
+    private static Camera twoSpheresOnMirrors(Scene scene) {
+        scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene.geometries.add( //
+                new Sphere(400d, new Point(-950, -900, -1000)).setEmission(new Color(0, 50, 100)) //
+                        .setMaterial(new Material().withKd(0.25).withKs(0.25).withShininess(20)
+                                .withKt(new Double3(0.5, 0, 0))),
+                new Sphere(200d, new Point(-950, -900, -1000)).setEmission(new Color(100, 50, 20)) //
+                        .setMaterial(new Material().withKd(0.25).withKs(0.25).withShininess(20)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                        new Point(670, 670, 3000)) //
+                        .setEmission(new Color(20, 20, 20)) //
+                        .setMaterial(new Material().withKr(1)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                        new Point(-1500, -1500, -2000)) //
+                        .setEmission(new Color(20, 20, 20)) //
+                        .setMaterial(new Material().withKr(new Double3(0.5, 0, 0.4))));
+        scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4)) //
+                .setKl(0.00001).setKq(0.000005));
+        return new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPSize(2500, 2500).setVPDistance(10000);
+    }
+
+    /**
+     * Creates the scene of two triangles with a partial shadow of a transparent sphere (refractionShadow)
+     *
+     * @param scene the scene to fill
+     * @return the camera of the scene, without image writer and ray tracer
+     */
+    private static Camera trianglesTransparentSphere(Scene scene) {
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+        scene.geometries.add( //
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
+                        new Point(75, 75, -150)) //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
+                new Sphere(30d, new Point(60, 50, -50)).setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30).withKt(0.6)));
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1)) //
+                .setKl(4E-5).setKq(2E-7));
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPSize(200, 200).setVPDistance(1000);
+    }
+
+    /**
+     * Creates the small scene of a sphere and a triangle (a thumbnail)
+     *
+     * @param scene the scene to fill
+     * @return the camera of the scene, without image writer and ray tracer
+     */
+    private static Camera thumbnail(Scene scene) {
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.15)));
+        scene.geometries.add(
+                new Sphere(50d, new Point(0, 0, -100)).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(30)),
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().withKs(0.8).withShininess(60)));
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(-1, -1, -4))
+                .setKl(4E-4).setKq(2E-5));
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(1000);
+    }
+
+    /**
+     * Creates the cameras of the concurrent renders
+     *
+     * @param threads  the amount of the threads of every camera, 0 for the cameras on the executor
+     * @param executor the shared executor, null for the cameras with their own threads
+     * @return the cameras
+     */
+    private static LinkedList<Camera> thumbnailCameras(int threads, ExecutorService executor) {
+        var cameras = new LinkedList<Camera>();
+        for (int i = 0; i < CONCURRENT_RENDERS; ++i) {
+            Scene scene = new Scene.SceneBuilder("Thumbnail scene").build();
+            cameras.add(thumbnail(scene)
+                    .setImageWriter(new ImageWriter("thumbnail", THUMBNAIL_RESOLUTION, THUMBNAIL_RESOLUTION))
+                    .setRayTracer(new RayTracerBasic(scene))
+                    .setMultiThreading(threads).setExecutor(executor)
+                    .setPrintInterval(0));
+        }
+        return cameras;
+    }
+
+    /**
+     * Registers the benchmarks of the concurrent renders: every operation renders all the
+     * cameras at once
+     *
+     * @param runner the benchmark runner
+     */
+    private static void registerConcurrent(BenchmarkRunner runner) {
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        // thread-per-camera: every camera creates its own threads
+        LinkedList<Camera> cameras = thumbnailCameras(threads, null);
+        runner.add("renderer.Camera.renderImage", Map.of("scene", "thumbnails", "threads", "perCamera"), () -> {
+            var renders = new LinkedList<Thread>();
+            for (Camera camera : cameras)
+                renders.add(new Thread(camera::renderImage));
+            for (var render : renders) render.start();
+            try {
+                for (var render : renders) render.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("The renders were interrupted", e);
+            }
+            return renders;
+        });
+
+        // shared executor: every camera submits its tiles to one bounded pool, and the renders
+        // themselves run on the same pool; its threads are daemons, so the JVM exits without
+        // shutting it down
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+        LinkedList<Camera> executorCameras = thumbnailCameras(0, pool);
+        runner.add("renderer.Camera.renderImage", Map.of("scene", "thumbnails", "threads", "sharedExecutor"), () -> {
+            var renders = new LinkedList<Future<?>>();
+            for (Camera camera : executorCameras)
+                renders.add(pool.submit(camera::renderImage));
+            try {
+                for (var render : renders) render.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("A render failed", e);
+            }
+            return renders;
+        });
+    }
+
+    /**
+     * Creates a camera of a scene, ready for rendering
+     *
+     * @param factory the scene factory
+     * @return the camera
+     */
+    private static Camera camera(Function<Scene, Camera> factory) {
+        Scene scene = new Scene.SceneBuilder("Benchmark scene").build();
+        return factory.apply(scene)
+                .setImageWriter(new ImageWriter("benchmark", RESOLUTION, RESOLUTION))
+                .setRayTracer(new RayTracerBasic(scene))
+                .setPrintInterval(0);
+    }
+
+    /**
+     * Registers the benchmarks of one scene
+     *
+     * @param runner  the benchmark runner
+     * @param name    the name of the scene
+     * @param factory the scene factory
+     */
+    private static void register(BenchmarkRunner runner, String name, Function<Scene, Camera> factory) {
+        // traceRay: one ray per operation, cycling through the rays of all the pixels
+        Scene scene = new Scene.SceneBuilder("Benchmark scene").build();
+        Camera camera = factory.apply(scene);
+        RayTracerBasic rayTracer = new RayTracerBasic(scene);
+        Ray[] rays = new Ray[RESOLUTION * RESOLUTION];
+        for (int i = 0; i < RESOLUTION; ++i)
+            for (int j = 0; j < RESOLUTION; ++j)
+                rays[i * RESOLUTION + j] = camera.constructRay(RESOLUTION, RESOLUTION, j, i);
+        int[] next = {0};
+        runner.add("renderer.RayTracerBasic.traceRay", Map.of("scene", name), () -> {
+            int index = next[0];
+            next[0] = index + 1 == rays.length ? 0 : index + 1;
+            return rayTracer.traceRay(rays[index]);
+        });
+
+        // renderImage: one image per operation
+        for (int threads : THREADS) {
+            Camera renderCamera = camera(factory).setMultiThreading(threads);
+            runner.add("renderer.Camera.renderImage", Map.of("scene", name, "threads", String.valueOf(threads)),
+                    renderCamera::renderImage);
+        }
+        Camera forkJoinCamera = camera(factory).setForkJoin(true);
+        runner.add("renderer.Camera.renderImage", Map.of("scene", name, "threads", "forkJoin"),
+                forkJoinCamera::renderImage);
+        Camera packetCamera = camera(factory).setRayPackets(8);
+        runner.add("renderer.Camera.renderImage", Map.of("scene", name, "threads", "0", "packets", "8"),
+                packetCamera::renderImage);
+    }
+
+    /**
+     * Registers the benchmarks
+     *
+     * @param runner the benchmark runner
+     */
+    public static void register(BenchmarkRunner runner) {
+        register(runner, "refractionTwoSpheres", RenderBenchmarks::twoSpheres);
+        register(runner, "reflectionTwoSpheresMirrored", RenderBenchmarks::twoSpheresOnMirrors);
+        register(runner, "refractionShadow", RenderBenchmarks::trianglesTransparentSphere);
+        registerConcurrent(runner);
+    }
+}
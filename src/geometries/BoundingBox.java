@@ -0,0 +1,214 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Axis-aligned bounding box (AABB) of an intersectable object.
+ * The box is kept as its minimal and maximal coordinates along each axis and is
+ * used by the acceleration structures in order to skip whole groups of geometries
+ * that the ray cannot hit.
+ */
+public class BoundingBox {
+
+    /** Relative error bound of the slab test (see PBRT, "Robust ray-bounds intersections") */
+    private static final double SLAB_ERROR = 1 + 2 * (3 * Math.ulp(1d) / 2) / (1 - 3 * Math.ulp(1d) / 2);
+
+    /** Minimal coordinates of the box */
+    final double minX, minY, minZ;
+
+    /** Maximal coordinates of the box */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructs a bounding box by its minimal and maximal coordinates.
+     *
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest bounding box that contains all the given points.
+     *
+     * @param points the points to bound
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /** @return the minimal corner of the box */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /** @return the maximal corner of the box */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the smallest box that contains both this box and another box.
+     *
+     * @param other the other box
+     * @return the union box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /** @return the surface area of the box */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Returns the coordinate of the box center along an axis.
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the center coordinate along the axis
+     */
+    public double center(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Checks whether a ray hits the box closer than a maximum distance (slab test).
+     * The test does not allocate any object, so it is cheap enough to be run before
+     * the real intersection calculation.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance the maximum distance from the ray head
+     * @return true if the ray may hit the box, false if it certainly misses it
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        return entryDistance(ray, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Calculates the distance at which a ray enters the box (slab test), without allocations.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance the maximum distance from the ray head
+     * @return the entry distance (0 if the ray starts inside the box),
+     * or positive infinity if the ray misses the box up to the maximum distance
+     */
+    public double entryDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        return entryDistance(p0.getX(), p0.getY(), p0.getZ(), 1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ(),
+                maxDistance);
+    }
+
+    /**
+     * Calculates the distance at which a ray enters the box (slab test), on the primitive
+     * coordinates of the ray head and the inverses of the coordinates of its direction.
+     *
+     * @param px          the x coordinate of the ray head
+     * @param py          the y coordinate of the ray head
+     * @param pz          the z coordinate of the ray head
+     * @param invX        the inverse of the x coordinate of the ray direction
+     * @param invY        the inverse of the y coordinate of the ray direction
+     * @param invZ        the inverse of the z coordinate of the ray direction
+     * @param maxDistance the maximum distance from the ray head
+     * @return the entry distance (0 if the ray starts inside the box),
+     * or positive infinity if the ray misses the box up to the maximum distance
+     */
+    double entryDistance(double px, double py, double pz, double invX, double invY, double invZ,
+                         double maxDistance) {
+        return entryDistance(minX, minY, minZ, maxX, maxY, maxZ, px, py, pz, invX, invY, invZ, maxDistance);
+    }
+
+    /**
+     * Calculates the distance at which a ray enters a box (slab test), on primitive coordinates
+     * only - for the boxes that are stored as arrays of coordinates as well.
+     *
+     * @param minX        the minimal x coordinate of the box
+     * @param minY        the minimal y coordinate of the box
+     * @param minZ        the minimal z coordinate of the box
+     * @param maxX        the maximal x coordinate of the box
+     * @param maxY        the maximal y coordinate of the box
+     * @param maxZ        the maximal z coordinate of the box
+     * @param px          the x coordinate of the ray head
+     * @param py          the y coordinate of the ray head
+     * @param pz          the z coordinate of the ray head
+     * @param invX        the inverse of the x coordinate of the ray direction
+     * @param invY        the inverse of the y coordinate of the ray direction
+     * @param invZ        the inverse of the z coordinate of the ray direction
+     * @param maxDistance the maximum distance from the ray head
+     * @return the entry distance (0 if the ray starts inside the box),
+     * or positive infinity if the ray misses the box up to the maximum distance
+     */
+    static double entryDistance(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                double px, double py, double pz, double invX, double invY, double invZ,
+                                double maxDistance) {
+        double tMin = 0;
+        double tMax = maxDistance;
+
+        // x slab
+        double t0 = (minX - px) * invX;
+        double t1 = (maxX - px) * invX;
+        if (invX < 0) { double t = t0; t0 = t1; t1 = t; }
+        // NaN (ray parallel to the slab and starting on its border) never narrows the range
+        if (t0 > tMin) tMin = t0;
+        if (t1 * SLAB_ERROR < tMax) tMax = t1 * SLAB_ERROR;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+
+        // y slab
+        t0 = (minY - py) * invY;
+        t1 = (maxY - py) * invY;
+        if (invY < 0) { double t = t0; t0 = t1; t1 = t; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 * SLAB_ERROR < tMax) tMax = t1 * SLAB_ERROR;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+
+        // z slab
+        t0 = (minZ - pz) * invZ;
+        t1 = (maxZ - pz) * invZ;
+        if (invZ < 0) { double t = t0; t0 = t1; t1 = t; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 * SLAB_ERROR < tMax) tMax = t1 * SLAB_ERROR;
+        // a ray parallel to a slab outside of it enters it at infinity, i.e. never
+        return tMin <= tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
@@ -0,0 +1,287 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled copy of geometries, frozen for rendering. The geometries are organized in a
+ * bounding volume hierarchy, and the hierarchy is flattened into arrays of primitive
+ * coordinates: the boxes of the nodes, the links between them, and the centers and radii
+ * of the spheres and the vertices of the triangles of the leaves, with their materials and
+ * emissions (by a {@link LeafKernel}). The search of the closest intersection walks the
+ * arrays instead of a graph of objects. The other queries use the hierarchy itself, and all
+ * the queries find exactly the same intersections as the original geometries.<br/>
+ * The original geometries are not changed. The compiled geometries do not follow the changes
+ * of them, {@link #isCompiledFrom(Geometries)} tells whether they are still up to date.
+ */
+public class CompiledGeometries extends Intersectable {
+    /** Relative margin of the maximum distance when searching beyond the closest point found so far */
+    private static final double CLOSEST_DISTANCE_MARGIN = 1 + 1e-9;
+
+    /** The compiled geometries */
+    private final Geometries source;
+    /** The version of the geometries when they were compiled */
+    private final long version;
+    /** The hierarchy of the geometries, for the queries that do not walk the arrays */
+    private final Geometries hierarchy;
+    /** The original order of the geometries, for the tie break of equally close intersections */
+    private final Map<Intersectable, Integer> ordinals;
+
+    /** The boxes of the nodes of the hierarchy, 6 coordinates per node: minimal x, y, z, maximal x, y, z */
+    private final double[] bounds;
+    /** The left child of every inner node (the right one follows it), or -(index of the leaf) - 1 of a leaf */
+    private final int[] nodes;
+    /** The geometries of the leaves */
+    private final LeafKernel leaves;
+    /** The geometries outside of the hierarchy (the unbounded ones), that every ray is tested with */
+    private final Intersectable[] unbounded;
+
+    /**
+     * Compiles geometries
+     *
+     * @param geometries the geometries to compile
+     */
+    public CompiledGeometries(Geometries geometries) {
+        source = geometries;
+        // a change during the compilation makes the compiled geometries out of date
+        version = geometries.version();
+        // the leaves are as wide as the kernel that intersects them
+        hierarchy = geometries.buildBVHCopy(LeafKernel.LANES);
+        // a tie between equally close intersections is broken by the order of the original geometries
+        ordinals = hierarchy.searchOrder();
+
+        Geometries root = null;
+        List<Intersectable> unboundedList = new ArrayList<>();
+        for (Intersectable intersectable : hierarchy.geometriesList) {
+            // the root of the hierarchy is the only collection that is left after the build
+            if (intersectable instanceof Geometries node)
+                root = node;
+            else
+                unboundedList.add(intersectable);
+        }
+        unbounded = unboundedList.toArray(new Intersectable[0]);
+
+        // number the nodes breadth first, so the children of every inner node are adjacent
+        List<Geometries> order = new ArrayList<>();
+        List<List<Intersectable>> leafList = new ArrayList<>();
+        if (root != null)
+            order.add(root);
+        // a binary hierarchy of n leaves has n - 1 inner nodes
+        nodes = new int[Math.max(0, 2 * countLeaves(root) - 1)];
+        for (int i = 0; i < order.size(); ++i) {
+            Geometries node = order.get(i);
+            if (isInner(node)) {
+                nodes[i] = order.size();
+                order.add((Geometries) node.geometriesList.get(0));
+                order.add((Geometries) node.geometriesList.get(1));
+            } else {
+                nodes[i] = -leafList.size() - 1;
+                leafList.add(node.geometriesList);
+            }
+        }
+
+        bounds = new double[6 * order.size()];
+        for (int i = 0; i < order.size(); ++i) {
+            BoundingBox nodeBox = order.get(i).getBoundingBox();
+            bounds[6 * i] = nodeBox.minX;
+            bounds[6 * i + 1] = nodeBox.minY;
+            bounds[6 * i + 2] = nodeBox.minZ;
+            bounds[6 * i + 3] = nodeBox.maxX;
+            bounds[6 * i + 4] = nodeBox.maxY;
+            bounds[6 * i + 5] = nodeBox.maxZ;
+        }
+        leaves = LeafKernel.of(leafList, ordinals);
+    }
+
+    /**
+     * Checks whether the compiled geometries are up to date - they are compiled from the given
+     * geometries, and no geometries (nor their materials and emissions) have been changed since
+     *
+     * @param geometries the geometries
+     * @return true if the compiled geometries are up to date with the geometries
+     */
+    public boolean isCompiledFrom(Geometries geometries) {
+        return geometries == source && geometries.version() == version;
+    }
+
+    /**
+     * Checks whether a node of the hierarchy is an inner node - the nested collections are
+     * flattened by the build, so only an inner node has collections as its children
+     *
+     * @param node the node
+     * @return true if the node is an inner node, false if it is a leaf
+     */
+    private static boolean isInner(Geometries node) {
+        return node.geometriesList.get(0) instanceof Geometries;
+    }
+
+    /**
+     * Counts the leaves of a hierarchy
+     *
+     * @param node the root of the hierarchy, may be null
+     * @return the amount of the leaves
+     */
+    private static int countLeaves(Geometries node) {
+        if (node == null) return 0;
+        if (!isInner(node)) return 1;
+        return countLeaves((Geometries) node.geometriesList.get(0))
+                + countLeaves((Geometries) node.geometriesList.get(1));
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return hierarchy.getBoundingBox();
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        return hierarchy.findGeoIntersections(ray, maxDistance);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, double minK) {
+        return hierarchy.findTransparency(ray, maxDistance, minK);
+    }
+
+    @Override
+    public void findClosestIntersections(RayPacket packet) {
+        hierarchy.findClosestIntersections(packet);
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        GeoPoint closest = null;
+        for (Intersectable geometry : unbounded) {
+            GeoPoint geoPoint = geometry.findClosestIntersection(ray, maxDistance);
+            if (geoPoint != null && (closest = closer(p0, closest, geoPoint)) == geoPoint)
+                maxDistance = shrinkDistance(p0.distanceSquared(geoPoint.point));
+        }
+        if (nodes.length == 0)
+            return closest;
+
+        Vector dir = ray.getDir();
+        double invX = 1 / dir.getX(), invY = 1 / dir.getY(), invZ = 1 / dir.getZ();
+        if (entryDistance(0, p0, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+            return closest;
+        return closer(p0, closest, findClosestIntersection(0, ray, invX, invY, invZ, maxDistance));
+    }
+
+    /**
+     * Finds the closest intersection of a ray in a node of the hierarchy, the same way
+     * as {@link Geometries} does
+     *
+     * @param node        the index of the node
+     * @param ray         the ray
+     * @param invX        the inverse of the x coordinate of the ray direction
+     * @param invY        the inverse of the y coordinate of the ray direction
+     * @param invZ        the inverse of the z coordinate of the ray direction
+     * @param maxDistance the maximum distance for the intersection
+     * @return the closest intersection, or null if there is none up to the maximum distance
+     */
+    private GeoPoint findClosestIntersection(int node, Ray ray, double invX, double invY, double invZ,
+                                             double maxDistance) {
+        Point p0 = ray.getP0();
+        int child = nodes[node];
+
+        // an inner node visits the child that the ray enters first
+        if (child >= 0) {
+            int first = child, second = child + 1;
+            double firstEntry = entryDistance(first, p0, invX, invY, invZ, maxDistance);
+            double secondEntry = entryDistance(second, p0, invX, invY, invZ, maxDistance);
+            if (secondEntry < firstEntry) {
+                first = second;
+                second = child;
+                double entry = firstEntry;
+                firstEntry = secondEntry;
+                secondEntry = entry;
+            }
+
+            if (firstEntry == Double.POSITIVE_INFINITY)
+                return null;
+            GeoPoint closest = findClosestIntersection(first, ray, invX, invY, invZ, maxDistance);
+            if (closest != null)
+                maxDistance = shrinkDistance(p0.distanceSquared(closest.point));
+            if (secondEntry > maxDistance)
+                return closest;
+            return closer(p0, closest, findClosestIntersection(second, ray, invX, invY, invZ, maxDistance));
+        }
+
+        int leaf = -child - 1;
+        GeoPoint closest = leaves.findClosestIntersection(ray, maxDistance, leaf);
+        if (closest != null)
+            maxDistance = shrinkDistance(p0.distanceSquared(closest.point));
+        List<Intersectable> others = leaves.others(leaf);
+        for (int i = 0, size = others.size(); i < size; ++i) {
+            GeoPoint geoPoint = others.get(i).findClosestIntersection(ray, maxDistance);
+            if (geoPoint != null && (closest = closer(p0, closest, geoPoint)) == geoPoint)
+                maxDistance = shrinkDistance(p0.distanceSquared(geoPoint.point));
+        }
+        return closest;
+    }
+
+    /**
+     * Calculates the distance at which a ray enters the box of a node
+     *
+     * @param node        the index of the node
+     * @param p0          the head of the ray
+     * @param invX        the inverse of the x coordinate of the ray direction
+     * @param invY        the inverse of the y coordinate of the ray direction
+     * @param invZ        the inverse of the z coordinate of the ray direction
+     * @param maxDistance the maximum distance from the ray head
+     * @return the entry distance, or positive infinity if the ray misses the box up to the maximum distance
+     */
+    private double entryDistance(int node, Point p0, double invX, double invY, double invZ, double maxDistance) {
+        int i = 6 * node;
+        return BoundingBox.entryDistance(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], bounds[i + 4],
+                bounds[i + 5], p0.getX(), p0.getY(), p0.getZ(), invX, invY, invZ, maxDistance);
+    }
+
+    /**
+     * Chooses the closer of two intersection points, equally close points are resolved by
+     * the original order of the geometries - the later geometry wins
+     *
+     * @param p0       the head of the ray
+     * @param closest  the closest point found so far (may be null)
+     * @param geoPoint the new point (may be null)
+     * @return the closer point
+     */
+    private GeoPoint closer(Point p0, GeoPoint closest, GeoPoint geoPoint) {
+        if (closest == null) return geoPoint;
+        if (geoPoint == null) return closest;
+        double distance = p0.distanceSquared(geoPoint.point);
+        double minDistance = p0.distanceSquared(closest.point);
+        if (distance < minDistance)
+            return geoPoint;
+        if (distance == minDistance && ordinal(geoPoint.geometry) >= ordinal(closest.geometry))
+            return geoPoint;
+        return closest;
+    }
+
+    /**
+     * Returns the original order of a geometry
+     *
+     * @param geometry the geometry
+     * @return the ordinal, a geometry that is not in the original geometries is the last one
+     */
+    private int ordinal(Intersectable geometry) {
+        return ordinals.getOrDefault(geometry, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Calculates the maximum distance for the rest of a closest point search, slightly
+     * enlarged so that equally close points are still found for the tie break
+     *
+     * @param distanceSquared the squared distance of the closest point found so far
+     * @return the new maximum distance
+     */
+    private static double shrinkDistance(double distanceSquared) {
+        return Math.sqrt(distanceSquared) * CLOSEST_DISTANCE_MARGIN;
+    }
+}
@@ -79,22 +79,24 @@ public class Cuboid extends Geometries {
         Point p2 = new Point(p1.getX(), p1.getY() - height, p1.getZ());
         Point p3 = new Point(p1.getX() + width, p2.getY(), p1.getZ());
         Point p4 = new Point(p1.getX() + width, p1.getY(), p1.getZ());
+        // one shared material for all the faces
+        Material material = new Material().withKd(kd).withKr(kr).withKs(ks);
         //front
-        this.add(new Polygon(p1, p2, p3, p4).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p1, p2, p3, p4).setEmission(emission).setMaterial(material));
         Point p5 = new Point(p3.getX(), p3.getY(), p3.getZ() - depth);
         Point p6 = new Point(p4.getX(), p4.getY(), p4.getZ() - depth);
         //right
-        this.add(new Polygon(p4, p3, p5, p6).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p4, p3, p5, p6).setEmission(emission).setMaterial(material));
         Point p7 = new Point(p5.getX() - width, p5.getY(), p5.getZ());
         Point p8 = new Point(p6.getX() - width, p6.getY(), p6.getZ());
         //back
-        this.add(new Polygon(p6, p5, p7, p8).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p6, p5, p7, p8).setEmission(emission).setMaterial(material));
         //left
-        this.add(new Polygon(p8, p7, p2, p1).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p8, p7, p2, p1).setEmission(emission).setMaterial(material));
         //up
-        this.add(new Polygon(p1, p4, p6, p8).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p1, p4, p6, p8).setEmission(emission).setMaterial(material));
         //down
-        this.add(new Polygon(p2, p3, p5, p7).setEmission(emission).setMaterial(new Material().setKd(kd).setKr(kr).setKs(ks)));
+        this.add(new Polygon(p2, p3, p5, p7).setEmission(emission).setMaterial(material));
     }
 
 }
@@ -11,6 +11,8 @@ import static primitives.Util.*;
 public class Cylinder extends Tube{
 
     double height;
+    /** The bounding box of the cylinder */
+    private final BoundingBox box;
 
     /** create a new Cylinder object
      * @param radius the radius of the base of the cylinder
@@ -20,6 +22,23 @@ public class Cylinder extends Tube{
 
         super(radius,axisRay);
         this.height = height;
+
+        // The bases are discs around the ends of the axis, the extent of a disc along each
+        // coordinate axis is radius * sqrt(1 - dir_i^2)
+        Point p0 = axisRay.getP0();
+        Vector dir = axisRay.getDir();
+        Point p1 = axisRay.getPoint(height);
+        double ex = radius * Math.sqrt(Math.max(0, 1 - dir.getX() * dir.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - dir.getY() * dir.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - dir.getZ() * dir.getZ()));
+        this.box = new BoundingBox(
+                Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey, Math.min(p0.getZ(), p1.getZ()) - ez,
+                Math.max(p0.getX(), p1.getX()) + ex, Math.max(p0.getY(), p1.getY()) + ey, Math.max(p0.getZ(), p1.getZ()) + ez);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
     }
 
     /** @return the height*/
@@ -1,24 +1,534 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 public class Geometries extends Intersectable{
+    /** Maximal amount of geometries in a BVH leaf */
+    private static final int MAX_LEAF_SIZE = 4;
+    /** Cost of visiting a BVH node relative to the cost of intersecting one geometry */
+    private static final double TRAVERSAL_COST = 1d;
+    /** Relative margin of the maximum distance when searching beyond the closest point found so far */
+    private static final double CLOSEST_DISTANCE_MARGIN = 1 + 1e-9;
+
     List <Intersectable> geometriesList;
 
+    /**
+     * The amount of the changes of the collection and of everything in it so far - a change
+     * of a nested collection or geometry is reported to all the collections that contain it
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The bounding box (merged from the children) and the version of the collection when it
+     * was calculated, null until the first query.
+     *
+     * @param box     the bounding box, null if the collection is unbounded
+     * @param version the version of the collection when the box was calculated
+     */
+    private record CachedBox(BoundingBox box, long version) {
+    }
+
+    /** The cached bounding box, it is valid while the collection is not changed */
+    private CachedBox cachedBox = null;
+
+    /**
+     * Original (flattened) order of the geometries of a built hierarchy, used to break
+     * ties between equally close intersections exactly as the linear search does
+     */
+    private Map<Intersectable, Integer> ordinals = null;
+
+    /** Whether this is an inner BVH node, i.e. its children are exactly two BVH nodes */
+    private boolean inner = false;
+
     public Geometries(){
-        geometriesList = new LinkedList<Intersectable>();
+        geometriesList = new ArrayList<Intersectable>();
     }
 
     public  Geometries(Intersectable... geometries){
-        geometriesList = new LinkedList<>();
+        geometriesList = new ArrayList<>();
         add(geometries);
     }
 
+    /**
+     * Constructs a BVH node over the given geometries. A node is not a container of the
+     * geometries that is notified of their changes, and it is never changed, so its box is always valid.
+     *
+     * @param geometries the children of the node
+     * @param box        the bounding box of all the children
+     * @param ordinals   the original order of the geometries of the hierarchy
+     * @param inner      whether the children are two BVH nodes
+     */
+    private Geometries(List<Intersectable> geometries, BoundingBox box, Map<Intersectable, Integer> ordinals,
+                       boolean inner) {
+        geometriesList = geometries;
+        cachedBox = new CachedBox(box, 0);
+        this.ordinals = ordinals;
+        this.inner = inner;
+    }
+
     public void add(Intersectable... geometries){
-        for (Intersectable geometry : geometries)
+        for (Intersectable geometry : geometries) {
             geometriesList.add(geometry);
+            geometry.addParent(this);
+        }
+        changed();
+    }
+
+    /** Records a change of the collection or of one of the geometries in it */
+    @Override
+    void changed() {
+        version.incrementAndGet();
+        super.changed();
+    }
+
+    /** @return the amount of the changes of the collection and of everything in it so far */
+    long version() {
+        return version.get();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        // the box and the amount of the changes are published together, by one reference
+        CachedBox cached = cachedBox;
+        long current = version.get();
+        if (cached == null || cached.version() != current) {
+            cached = new CachedBox(calcBoundingBox(), current);
+            cachedBox = cached;
+        }
+        return cached.box();
+    }
+
+    /**
+     * Merges the bounding boxes of the children.
+     *
+     * @return the merged box, null if the collection is empty or one of the children is unbounded
+     */
+    private BoundingBox calcBoundingBox() {
+        BoundingBox result = null;
+        for (Intersectable intersectable : geometriesList) {
+            // an empty nested collection has nothing to bound
+            if (intersectable instanceof Geometries nested && nested.geometriesList.isEmpty())
+                continue;
+            BoundingBox childBox = intersectable.getBoundingBox();
+            // one unbounded child makes the whole collection unbounded
+            if (childBox == null)
+                return null;
+            result = result == null ? childBox : result.union(childBox);
+        }
+        return result;
+    }
+
+    /**
+     * Builds a bounding volume hierarchy (BVH) over the geometries in the collection.
+     * Nested collections are flattened, the bounded geometries are organized in a binary tree
+     * of bounding boxes split by the surface area heuristic (SAH), and the unbounded geometries
+     * (e.g. planes) stay in the top level list since no box can cull them.
+     * Geometries added after the build are tested linearly.
+     *
+     * @return the Geometries object itself, allowing for method chaining
+     */
+    public Geometries buildBVH() {
+        return buildBVH(1);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries in the collection, for leaves that
+     * intersect several geometries at once
+     *
+     * @param lanes the amount of the geometries that a leaf intersects at once
+     * @return the Geometries object itself, allowing for method chaining
+     */
+    private Geometries buildBVH(int lanes) {
+        List<BVHEntry> bounded = new ArrayList<>();
+        List<Intersectable> unbounded = new ArrayList<>();
+        flatten(this, bounded, unbounded);
+
+        // a rebuild keeps the original order, geometries added since are numbered after it
+        if (ordinals == null)
+            ordinals = new IdentityHashMap<>();
+        collectOrdinals(this, ordinals);
+
+        if (!bounded.isEmpty())
+            unbounded.add(buildNode(bounded, ordinals, lanes));
+        geometriesList = unbounded;
+        changed();
+        return this;
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over a copy of the collection, the collection itself
+     * is not changed. The equally close intersections are resolved in the order of the
+     * collection, as by the collection itself.
+     *
+     * @param lanes the amount of the geometries that a leaf of the copy intersects at once, see
+     *              {@link LeafKernel#LANES} - the wider the leaves, the bigger they are
+     * @return the root of the new hierarchy
+     */
+    Geometries buildBVHCopy(int lanes) {
+        // the copy is not notified of the changes of the collection, it is not added as its container
+        Geometries copy = new Geometries();
+        copy.geometriesList.add(this);
+        copy.ordinals = searchOrder();
+        return copy.buildBVH(lanes);
+    }
+
+    /**
+     * Numbers the geometries of the collection in the order that the search of the closest
+     * intersection resolves the equally close intersections by - the later geometry wins.
+     *
+     * @return the ordinal of every geometry
+     */
+    Map<Intersectable, Integer> searchOrder() {
+        Map<Intersectable, Integer> order = ordinals == null ? new IdentityHashMap<>() : new IdentityHashMap<>(ordinals);
+        collectOrdinals(this, order);
+        return order;
+    }
+
+    /**
+     * A geometry with its bounding box, used during the BVH build.
+     *
+     * @param geometry the geometry
+     * @param box      its bounding box
+     */
+    private record BVHEntry(Intersectable geometry, BoundingBox box) {
+    }
+
+    /**
+     * Collects the leaf geometries of a collection, divided into bounded and unbounded ones.
+     *
+     * @param geometries the collection to flatten
+     * @param bounded    the list to fill with the bounded geometries and their boxes
+     * @param unbounded  the list to fill with the unbounded geometries
+     */
+    private static void flatten(Geometries geometries, List<BVHEntry> bounded, List<Intersectable> unbounded) {
+        for (Intersectable intersectable : geometries.geometriesList) {
+            if (intersectable instanceof Geometries nested)
+                flatten(nested, bounded, unbounded);
+            else {
+                BoundingBox childBox = intersectable.getBoundingBox();
+                if (childBox == null)
+                    unbounded.add(intersectable);
+                else
+                    bounded.add(new BVHEntry(intersectable, childBox));
+            }
+        }
+    }
+
+    /**
+     * Numbers the leaf geometries of a collection in the order the linear search visits them.
+     *
+     * @param geometries the collection
+     * @param ordinals   the map to fill
+     */
+    private static void collectOrdinals(Geometries geometries, Map<Intersectable, Integer> ordinals) {
+        for (Intersectable intersectable : geometries.geometriesList) {
+            if (intersectable instanceof Geometries nested)
+                collectOrdinals(nested, ordinals);
+            else
+                ordinals.putIfAbsent(intersectable, ordinals.size());
+        }
+    }
+
+    /**
+     * Recursively builds a BVH node using the surface area heuristic.
+     * For each axis the entries are sorted by the centers of their boxes, and the split
+     * that minimizes the expected cost of intersecting both children is chosen.
+     * A leaf that intersects several geometries at once costs one geometry per vector of
+     * geometries, so such leaves may hold more geometries.
+     *
+     * @param entries  the geometries of the node (the list is reordered)
+     * @param ordinals the original order of the geometries
+     * @param lanes    the amount of the geometries that a leaf intersects at once
+     * @return the BVH node
+     */
+    private static Geometries buildNode(List<BVHEntry> entries, Map<Intersectable, Integer> ordinals, int lanes) {
+        int n = entries.size();
+        BoundingBox nodeBox = entries.get(0).box();
+        for (BVHEntry entry : entries)
+            nodeBox = nodeBox.union(entry.box());
+
+        if (n == 1)
+            return new Geometries(new ArrayList<>(List.of(entries.get(0).geometry())), nodeBox, ordinals, false);
+
+        double nodeArea = nodeBox.surfaceArea();
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = 0;
+        int bestSplit = n / 2;
+        double[] rightAreas = new double[n];
+
+        for (int axis = 0; axis < 3; ++axis) {
+            sortByAxis(entries, axis);
+
+            // areas of the boxes of the suffixes [i, n)
+            BoundingBox right = entries.get(n - 1).box();
+            for (int i = n - 1; i > 0; --i) {
+                right = right.union(entries.get(i).box());
+                rightAreas[i] = right.surfaceArea();
+            }
+
+            // sweep the prefixes [0, i) and evaluate each split
+            BoundingBox left = entries.get(0).box();
+            for (int i = 1; i < n; ++i) {
+                left = left.union(entries.get(i - 1).box());
+                double cost = nodeArea == 0 ? Math.abs(n - 2 * i)
+                        : TRAVERSAL_COST + (left.surfaceArea() * i + rightAreas[i] * (n - i)) / nodeArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestSplit = i;
+                }
+            }
+        }
+
+        // a leaf is cheaper than the best split - stop subdividing
+        if (n <= MAX_LEAF_SIZE * lanes && (nodeArea == 0 || bestCost >= (n + lanes - 1) / lanes)) {
+            List<Intersectable> leaf = new ArrayList<>(n);
+            for (BVHEntry entry : entries)
+                leaf.add(entry.geometry());
+            return new Geometries(leaf, nodeBox, ordinals, false);
+        }
+
+        if (bestAxis != 2)
+            sortByAxis(entries, bestAxis);
+        List<Intersectable> children = new ArrayList<>(2);
+        children.add(buildNode(new ArrayList<>(entries.subList(0, bestSplit)), ordinals, lanes));
+        children.add(buildNode(new ArrayList<>(entries.subList(bestSplit, n)), ordinals, lanes));
+        return new Geometries(children, nodeBox, ordinals, true);
+    }
+
+    /**
+     * Sorts BVH entries by the centers of their boxes along an axis.
+     *
+     * @param entries the entries to sort
+     * @param axis    0 for x, 1 for y, 2 for z
+     */
+    private static void sortByAxis(List<BVHEntry> entries, int axis) {
+        entries.sort(Comparator.comparingDouble(entry -> entry.box().center(axis)));
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        // An inner BVH node visits the child that the ray enters first, so the second one
+        // is mostly rejected by its box against the shrunk maximum distance
+        if (inner) {
+            Geometries first = (Geometries) geometriesList.get(0);
+            Geometries second = (Geometries) geometriesList.get(1);
+            double firstEntry = first.getBoundingBox().entryDistance(ray, maxDistance);
+            double secondEntry = second.getBoundingBox().entryDistance(ray, maxDistance);
+            if (secondEntry < firstEntry) {
+                Geometries geometries = first;
+                first = second;
+                second = geometries;
+                double entry = firstEntry;
+                firstEntry = secondEntry;
+                secondEntry = entry;
+            }
+
+            if (firstEntry == Double.POSITIVE_INFINITY)
+                return null;
+            GeoPoint closest = first.findClosestIntersectionHelper(ray, maxDistance);
+            if (closest != null)
+                maxDistance = shrinkDistance(ray.getP0().distanceSquared(closest.point));
+            if (secondEntry > maxDistance)
+                return closest;
+            return closer(ray.getP0(), closest, second.findClosestIntersectionHelper(ray, maxDistance));
+        }
+
+        Point p0 = ray.getP0();
+        GeoPoint closest = null;
+        // indexed loops over the (random access) list do not create iterators per ray
+        for (int i = 0, size = geometriesList.size(); i < size; ++i) {
+            // the farther objects are rejected by the distance of the closest point found so far
+            GeoPoint geoPoint = geometriesList.get(i).findClosestIntersection(ray, maxDistance);
+            if (geoPoint != null && (closest = closer(p0, closest, geoPoint)) == geoPoint)
+                maxDistance = shrinkDistance(p0.distanceSquared(geoPoint.point));
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of all the rays of a packet with the geometries, into the
+     * closest intersections of the packet. Every node of the hierarchy is visited once for the
+     * whole packet, and only if at least one of the rays hits its box; the results are the same
+     * as the closest intersections of the rays one by one.
+     *
+     * @param packet the packet of rays, loaded by {@link RayPacket#load(Ray[], int)}
+     */
+    @Override
+    public void findClosestIntersections(RayPacket packet) {
+        packet.first = 0;
+        packet.end = packet.size;
+        findPacketClosest(packet);
+    }
+
+    /**
+     * Finds the closest intersections of the rays in the range of a packet with the geometries.
+     * The range is narrowed to the rays that hit the box of every visited node and geometry,
+     * and it is restored on the way back.
+     *
+     * @param packet the packet of rays
+     */
+    private void findPacketClosest(RayPacket packet) {
+        int rangeFirst = packet.first, rangeEnd = packet.end;
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && !packet.narrow(bounds))
+            return;
+        int nodeFirst = packet.first, nodeEnd = packet.end;
+
+        // An inner BVH node visits first the child that the first ray enters first, the
+        // maximum distances shrunk in it reject the other child for most of the rays
+        if (inner) {
+            Geometries first = (Geometries) geometriesList.get(0);
+            Geometries second = (Geometries) geometriesList.get(1);
+            if (packet.entryDistance(second.getBoundingBox(), nodeFirst)
+                    < packet.entryDistance(first.getBoundingBox(), nodeFirst)) {
+                Geometries geometries = first;
+                first = second;
+                second = geometries;
+            }
+            first.findPacketClosest(packet);
+            second.findPacketClosest(packet);
+        } else
+            for (int i = 0, size = geometriesList.size(); i < size; ++i) {
+                Intersectable intersectable = geometriesList.get(i);
+                if (intersectable instanceof Geometries nested) {
+                    nested.findPacketClosest(packet);
+                    continue;
+                }
+
+                BoundingBox childBox = intersectable.getBoundingBox();
+                if (childBox != null && !packet.narrow(childBox))
+                    continue;
+                if (intersectable instanceof Geometry geometry && geometry.findPacketDistances(packet))
+                    mergePacketDistances(packet, geometry);
+                else
+                    mergePacketCandidates(packet, intersectable);
+                packet.first = nodeFirst;
+                packet.end = nodeEnd;
+            }
+
+        packet.first = rangeFirst;
+        packet.end = rangeEnd;
+    }
+
+    /**
+     * Replaces the closest intersections of the rays in the range of a packet by their
+     * intersections with an intersectable, that finds them ray by ray
+     *
+     * @param packet        the packet of rays
+     * @param intersectable the intersectable
+     */
+    private void mergePacketCandidates(RayPacket packet, Intersectable intersectable) {
+        intersectable.findPacketIntersections(packet);
+        for (int ray = packet.first; ray < packet.end; ++ray) {
+            GeoPoint geoPoint = packet.candidates[ray];
+            if (geoPoint == null)
+                continue;
+            packet.candidates[ray] = null;
+            Point p0 = packet.rays[ray].getP0();
+            if ((packet.closest[ray] = closer(p0, packet.closest[ray], geoPoint)) == geoPoint)
+                packet.maxDistance[ray] = shrinkDistance(p0.distanceSquared(geoPoint.point));
+        }
+    }
+
+    /**
+     * Replaces the closest intersections of the rays in the range of a packet by their intersections
+     * with a geometry, by the distances that the geometry found, the same way as {@link #closer}.
+     * The intersection point is calculated on primitive coordinates, as by {@link Ray#getPoint(double)},
+     * and it is created only if it is the new closest intersection of the ray.
+     *
+     * @param packet   the packet of rays
+     * @param geometry the geometry whose distances are in the packet
+     */
+    private void mergePacketDistances(RayPacket packet, Geometry geometry) {
+        for (int ray = packet.first; ray < packet.end; ++ray) {
+            double t = packet.distances[ray];
+            if (Double.isNaN(t))
+                continue;
+            double px = packet.px[ray], py = packet.py[ray], pz = packet.pz[ray];
+            double x = px + packet.dx[ray] * t, y = py + packet.dy[ray] * t, z = pz + packet.dz[ray] * t;
+            double distance = (x - px) * (x - px) + (y - py) * (y - py) + (z - pz) * (z - pz);
+
+            GeoPoint closest = packet.closest[ray];
+            if (closest != null) {
+                double minDistance = packet.rays[ray].getP0().distanceSquared(closest.point);
+                if (distance > minDistance || distance == minDistance && ordinals != null
+                        && ordinal(geometry) < ordinal(closest.geometry))
+                    continue;
+            }
+            packet.closest[ray] = new GeoPoint(geometry, new Point(x, y, z));
+            packet.maxDistance[ray] = shrinkDistance(distance);
+        }
+    }
+
+    /**
+     * Chooses the closer of two intersection points. Equally close points are resolved as in the
+     * linear search of all the intersections - the later geometry wins; in a built hierarchy the
+     * geometries are visited in a different order, so their original order decides.
+     *
+     * @param p0       the head of the ray
+     * @param closest  the closest point found so far (may be null)
+     * @param geoPoint the new point, found later in the search (may be null)
+     * @return the closer point
+     */
+    private GeoPoint closer(Point p0, GeoPoint closest, GeoPoint geoPoint) {
+        if (closest == null) return geoPoint;
+        if (geoPoint == null) return closest;
+        double distance = p0.distanceSquared(geoPoint.point);
+        double minDistance = p0.distanceSquared(closest.point);
+        if (distance < minDistance)
+            return geoPoint;
+        if (distance == minDistance && (ordinals == null || ordinal(geoPoint.geometry) >= ordinal(closest.geometry)))
+            return geoPoint;
+        return closest;
+    }
+
+    /**
+     * Calculates the maximum distance for the rest of a closest point search.
+     * It is slightly enlarged so that equally close points are still found for the tie break.
+     *
+     * @param distanceSquared the squared distance of the closest point found so far
+     * @return the new maximum distance
+     */
+    private static double shrinkDistance(double distanceSquared) {
+        return Math.sqrt(distanceSquared) * CLOSEST_DISTANCE_MARGIN;
+    }
+
+    /**
+     * Returns the original order of a geometry in a built hierarchy.
+     *
+     * @param geometry the geometry
+     * @return the ordinal, geometries added after the build are the last ones
+     */
+    private int ordinal(Intersectable geometry) {
+        return ordinals.getOrDefault(geometry, Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, double minK) {
+        Double3 ktr = Double3.ONE;
+        for (int i = 0, size = geometriesList.size(); i < size; ++i) {
+            // BVH subtrees missed by the ray are rejected by their boxes
+            Double3 kt = geometriesList.get(i).findTransparency(ray, maxDistance, minK);
+            if (kt == Double3.ONE)
+                continue;
+            if (kt == Double3.ZERO)
+                return Double3.ZERO;
+
+            ktr = ktr == Double3.ONE ? kt : ktr.product(kt);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
     }
 
     @Override
@@ -2,13 +2,15 @@ package geometries;
 
 import primitives.*;
 
+import java.util.List;
+
 /**
  * The Geometry interface represents a geometric shape.
  */
 public abstract class Geometry extends Intersectable{
 
     protected Color emission = Color.BLACK;
-    private Material material = new Material();
+    private Material material = Material.NONE;
 
     /**
      * Returns the emission color of this geometry.
@@ -27,17 +29,22 @@ public abstract class Geometry extends Intersectable{
      */
     public Geometry setEmission(Color emission) {
         this.emission = emission;
+        // the compiled geometries keep the emissions
+        changed();
         return this;
     }
 
     /**
-     * Sets the material of this geometry.
+     * Sets the material of this geometry. Equal materials of the geometries are shared, see
+     * {@link MaterialRegistry#intern(Material)}.
      *
      * @param material The material to set.
      * @return The updated Geometry object.
      */
     public Geometry setMaterial(Material material) {
-        this.material = material;
+        this.material = MaterialRegistry.intern(material);
+        // the compiled geometries keep the materials
+        changed();
         return this;
     }
 
@@ -57,4 +64,54 @@ public abstract class Geometry extends Intersectable{
      * @return The normal vector at the specified point.
      */
     public abstract Vector getNormal(Point point);
-}
\ No newline at end of file
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, double minK) {
+        Double3 kt = material.getKt();
+
+        // an opaque geometry blocks the light with any intersection
+        if (kt.lowerThan(minK))
+            return countIntersections(ray, maxDistance) == 0 ? Double3.ONE : Double3.ZERO;
+
+        int count = countIntersections(ray, maxDistance);
+        if (count == 0)
+            return Double3.ONE;
+
+        // the light passes through the surface of the geometry at every intersection point
+        Double3 ktr = kt;
+        for (int i = 1; i < count; ++i) {
+            ktr = ktr.product(kt);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * Finds the distance along every ray in the range of a packet to its closest intersection with the geometry,
+     * up to the maximum distance of the ray, into the distances of the packet (NaN for a ray that
+     * misses). Geometries override it with a loop over the primitive coordinates of the packet that
+     * has no early exit and creates no object - the intersection points are created afterwards,
+     * only for the rays whose closest intersection is replaced.
+     *
+     * @param packet the packet of rays
+     * @return true if the distances are found, false if the geometry has no such loop (then its
+     * intersections are found by {@link #findPacketIntersections(RayPacket)})
+     */
+    protected boolean findPacketDistances(RayPacket packet) {
+        return false;
+    }
+
+    /**
+     * Counts the intersections between a given ray and the geometry, up to a maximum distance.
+     * Geometries override it with a calculation that does not create the intersection points.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance for the intersections
+     * @return the amount of intersection points
+     */
+    protected int countIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        return intersections == null ? 0 : intersections.size();
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 import primitives.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -30,6 +31,24 @@ public abstract class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Returns the material of the geometry at the point.
+         *
+         * @return The material.
+         */
+        public Material getMaterial() {
+            return geometry.getMaterial();
+        }
+
+        /**
+         * Returns the emission color of the geometry at the point.
+         *
+         * @return The emission color.
+         */
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
         /**
          * Checks if this GeoPoint is equal to the specified object.
          *
@@ -68,6 +87,27 @@ public abstract class Intersectable {
         }
     }
 
+    /** The collections that contain the object, they are notified of its changes */
+    private List<Geometries> parents = null;
+
+    /**
+     * Registers a collection that contains the object.
+     *
+     * @param parent the collection
+     */
+    void addParent(Geometries parent) {
+        if (parents == null)
+            parents = new ArrayList<>(1);
+        parents.add(parent);
+    }
+
+    /** Notifies the collections that contain the object of its change. */
+    void changed() {
+        if (parents != null)
+            for (Geometries parent : parents)
+                parent.changed();
+    }
+
     /**
      * Returns a list of intersection points between the given ray and this geometry.
      *
@@ -98,6 +138,10 @@ public abstract class Intersectable {
      * @return A list of GeoPoint objects representing the geographical intersections.
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        // the allocation-free box test rejects most of the rays before the real calculation
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && !bounds.intersects(ray, maxDistance))
+            return null;
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
@@ -110,14 +154,109 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * Returns the axis-aligned bounding box of the object.
+     * The object is unbounded by default, finite shapes override it by the box that they
+     * calculate once, at construction.
+     *
+     * @return the bounding box, or null if the object is unbounded (infinite)
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /** @return true if the object is finite and has a bounding box, false otherwise */
+    public boolean isBounded() {
+        return getBoundingBox() != null;
+    }
+
     /**
      * Finds the closest geographical intersection point between a given ray and the geometry.
      *
      * @param ray The ray used to find the closest intersection.
      * @return The closest GeoPoint object representing the geographical intersection.
      */
-    public GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> list = findGeoIntersections(ray);
-        return ray.findClosestGeoPoint(list);
+    public final GeoPoint findClosestIntersection(Ray ray) {
+        return findClosestIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest geographical intersection point between a given ray and the geometry,
+     * up to a maximum distance, without building lists of all the intersections.
+     *
+     * @param ray         The ray used to find the closest intersection.
+     * @param maxDistance The maximum distance for the intersection.
+     * @return The closest GeoPoint object, or null if there is no intersection up to the maximum distance.
+     */
+    public final GeoPoint findClosestIntersection(Ray ray, double maxDistance) {
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && !bounds.intersects(ray, maxDistance))
+            return null;
+        return findClosestIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Helper method for finding the closest geographical intersection between a given ray and the geometry.
+     * The default implementation scans all the intersections, geometries override it with a direct calculation.
+     *
+     * @param ray         The ray used to find the closest intersection.
+     * @param maxDistance The maximum distance for the intersection.
+     * @return The closest GeoPoint object, or null if there is no intersection up to the maximum distance.
+     */
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
     }
+
+    /**
+     * Finds the closest intersections of all the rays of a packet with the object, into the
+     * closest intersections of the packet. The rays are queried one by one by default.
+     *
+     * @param packet the packet of rays, loaded by {@link RayPacket#load(Ray[], int)}
+     */
+    public void findClosestIntersections(RayPacket packet) {
+        for (int i = 0; i < packet.size; ++i)
+            packet.closest[i] = findClosestIntersection(packet.rays[i], packet.maxDistance[i]);
+    }
+
+    /**
+     * Finds the intersection of every ray in the range of a packet with the object, up to the
+     * maximum distance of the ray, into the candidates of the packet (null for a ray that misses).
+     * The rays are queried one by one - this is the fallback of the geometries that do not
+     * find the distances of the packet by {@link Geometry#findPacketDistances(RayPacket)}.
+     *
+     * @param packet the packet of rays
+     */
+    protected void findPacketIntersections(RayPacket packet) {
+        for (int i = packet.first; i < packet.end; ++i)
+            packet.candidates[i] = findClosestIntersection(packet.rays[i], packet.maxDistance[i]);
+    }
+
+    /**
+     * Any-hit query for shadow rays: calculates the transparency of the objects between the ray head
+     * and a maximum distance, i.e. the product of the transparency coefficients (Kt) of all the
+     * intersection points. The search stops at the first occluder that pushes the product below
+     * the minimum, no intersection points are created for it.
+     *
+     * @param ray         the ray from the shaded point towards the light
+     * @param maxDistance the distance of the light
+     * @param minK        the minimal transparency that is still taken into account
+     * @return the transparency: {@link Double3#ONE} if nothing blocks the ray,
+     * {@link Double3#ZERO} if the product is below the minimum
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double minK) {
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && !bounds.intersects(ray, maxDistance))
+            return Double3.ONE;
+        return findTransparencyHelper(ray, maxDistance, minK);
+    }
+
+    /**
+     * Helper method of the any-hit transparency query.
+     *
+     * @param ray         the ray from the shaded point towards the light
+     * @param maxDistance the distance of the light
+     * @param minK        the minimal transparency that is still taken into account
+     * @return the transparency along the ray
+     */
+    protected abstract Double3 findTransparencyHelper(Ray ray, double maxDistance, double minK);
 }
@@ -0,0 +1,373 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Color;
+import primitives.Material;
+import primitives.MaterialRegistry;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The spheres and the triangles of the leaves of {@link CompiledGeometries}, stored as a
+ * structure of arrays of their primitive coordinates. One ray is intersected with all the
+ * spheres, and then with all the triangles of a leaf, in tight loops over the arrays - no
+ * object of a geometry is fetched and no virtual method is called until a hit is found,
+ * and no box of a single geometry is tested. The other geometries of a leaf are
+ * intersected as usual.<br/>
+ * The geometries of every leaf occupy a range of the arrays.<br/>
+ * The material (an index into the table of the materials) and the emission of every
+ * sphere and triangle are stored with its coordinates, and the intersection carries them
+ * to the shading.<br/>
+ * The loops run the same arithmetic as {@link Sphere} and {@link Triangle}, so the
+ * intersections are exactly the same.<br/>
+ * When the application runs with the incubator module {@code jdk.incubator.vector}, the kernel
+ * is replaced by a vectorized one (see {@link #of(List, Map)}), that intersects the ray with
+ * several spheres or triangles of a leaf at once.
+ */
+class LeafKernel {
+    /** The constructor of the vectorized kernel, null if the vector API is not available */
+    private static final Constructor<? extends LeafKernel> VECTORIZED;
+    /** The amount of the geometries that the kernel intersects at once, 1 for the scalar kernel */
+    static final int LANES;
+    /** Relative margin of the maximum distance when searching beyond the closest point found so far */
+    static final double CLOSEST_DISTANCE_MARGIN = 1 + 1e-9;
+
+    static {
+        Constructor<? extends LeafKernel> vectorized = null;
+        int lanes = 1;
+        // the vectorized kernel is compiled apart, and it can be loaded only with the incubator module
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                Class<? extends LeafKernel> type =
+                        Class.forName("geometries.VectorLeafKernel").asSubclass(LeafKernel.class);
+                lanes = type.getDeclaredField("LANES").getInt(null);
+                vectorized = type.getDeclaredConstructor(List.class, Map.class);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                vectorized = null;
+                lanes = 1;
+            }
+        }
+        VECTORIZED = vectorized;
+        LANES = lanes;
+    }
+
+    /**
+     * An intersection with a sphere or a triangle, with the material and the emission that
+     * were stored for it
+     */
+    private static final class Hit extends GeoPoint {
+        /** The material of the geometry */
+        private final Material material;
+        /** The emission of the geometry */
+        private final Color emission;
+
+        /**
+         * Constructs an intersection
+         *
+         * @param geometry the geometry
+         * @param point    the intersection point
+         * @param material the material of the geometry
+         * @param emission the emission of the geometry
+         */
+        Hit(Geometry geometry, Point point, Material material, Color emission) {
+            super(geometry, point);
+            this.material = material;
+            this.emission = emission;
+        }
+
+        @Override
+        public Material getMaterial() {
+            return material;
+        }
+
+        @Override
+        public Color getEmission() {
+            return emission;
+        }
+    }
+
+    /** The materials of the spheres and the triangles, equal materials are stored once */
+    private final Material[] materials;
+
+    /**
+     * The spheres, by leaves, every leaf in the original order. The range of every leaf is padded
+     * to a multiple of the lanes of the kernel by empty entries, whose coordinates are NaN.
+     */
+    private final Sphere[] spheres;
+    /** The original order of the spheres, for the tie break of equally close intersections */
+    final int[] sphereOrdinals;
+    /** The coordinates of the centers of the spheres */
+    final double[] cx, cy, cz;
+    /** The squares of the radii of the spheres */
+    final double[] radius2;
+    /** The indices of the materials of the spheres in the table of the materials */
+    private final int[] sphereMaterials;
+    /** The emissions of the spheres */
+    private final Color[] sphereEmissions;
+    /** The index of the first sphere of every leaf, and the amount of the spheres at the end */
+    final int[] sphereStart;
+    /** The index after the last sphere (before the padding) of every leaf */
+    final int[] sphereEnd;
+
+    /** The triangles, by leaves, every leaf in the original order and padded as the spheres */
+    private final Triangle[] triangles;
+    /** The original order of the triangles, for the tie break of equally close intersections */
+    final int[] triangleOrdinals;
+    /** The coordinates of the first vertices of the triangles */
+    final double[] ax, ay, az;
+    /** The coordinates of the edges from the first vertices to the second ones */
+    final double[] e1x, e1y, e1z;
+    /** The coordinates of the edges from the first vertices to the third ones */
+    final double[] e2x, e2y, e2z;
+    /** The indices of the materials of the triangles in the table of the materials */
+    private final int[] triangleMaterials;
+    /** The emissions of the triangles */
+    private final Color[] triangleEmissions;
+    /** The index of the first triangle of every leaf, and the amount of the triangles at the end */
+    final int[] triangleStart;
+    /** The index after the last triangle (before the padding) of every leaf */
+    final int[] triangleEnd;
+
+    /** The other geometries of every leaf, that are intersected one by one */
+    private final List<List<Intersectable>> others;
+
+    /**
+     * Builds the kernel of the leaves of a hierarchy - the vectorized kernel if the vector API
+     * is available, and the scalar one otherwise
+     *
+     * @param leaves   the geometries of every leaf
+     * @param ordinals the original order of the geometries of the hierarchy
+     * @return the kernel
+     */
+    static LeafKernel of(List<List<Intersectable>> leaves, Map<Intersectable, Integer> ordinals) {
+        if (VECTORIZED == null)
+            return new LeafKernel(leaves, ordinals);
+        try {
+            return VECTORIZED.newInstance(leaves, ordinals);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The vectorized leaf kernel cannot be built", e);
+        }
+    }
+
+    /**
+     * Builds the scalar kernel of the leaves of a hierarchy
+     *
+     * @param leaves   the geometries of every leaf
+     * @param ordinals the original order of the geometries of the hierarchy
+     */
+    LeafKernel(List<List<Intersectable>> leaves, Map<Intersectable, Integer> ordinals) {
+        this(leaves, ordinals, 1);
+    }
+
+    /**
+     * Builds the kernel of the leaves of a hierarchy
+     *
+     * @param leaves   the geometries of every leaf
+     * @param ordinals the original order of the geometries of the hierarchy
+     * @param lanes    the amount of the geometries that the kernel intersects at once, the
+     *                 spheres and the triangles of every leaf are padded to a multiple of it
+     */
+    LeafKernel(List<List<Intersectable>> leaves, Map<Intersectable, Integer> ordinals, int lanes) {
+        List<Sphere> sphereList = new ArrayList<>();
+        List<Triangle> triangleList = new ArrayList<>();
+        others = new ArrayList<>(leaves.size());
+        sphereStart = new int[leaves.size() + 1];
+        sphereEnd = new int[leaves.size()];
+        triangleStart = new int[leaves.size() + 1];
+        triangleEnd = new int[leaves.size()];
+        Comparator<Intersectable> order = Comparator.comparingInt(ordinals::get);
+        for (int leaf = 0; leaf < leaves.size(); ++leaf) {
+            List<Sphere> leafSpheres = new ArrayList<>();
+            List<Triangle> leafTriangles = new ArrayList<>();
+            List<Intersectable> leafOthers = new ArrayList<>();
+            for (Intersectable geometry : leaves.get(leaf)) {
+                if (geometry instanceof Sphere sphere)
+                    leafSpheres.add(sphere);
+                else if (geometry instanceof Triangle triangle)
+                    leafTriangles.add(triangle);
+                else
+                    leafOthers.add(geometry);
+            }
+            // the loops visit the geometries in their original order, so a later one wins a tie
+            leafSpheres.sort(order);
+            leafTriangles.sort(order);
+            sphereList.addAll(leafSpheres);
+            sphereEnd[leaf] = sphereList.size();
+            sphereList.addAll(Collections.nCopies(padding(leafSpheres.size(), lanes), null));
+            triangleList.addAll(leafTriangles);
+            triangleEnd[leaf] = triangleList.size();
+            triangleList.addAll(Collections.nCopies(padding(leafTriangles.size(), lanes), null));
+            others.add(leafOthers);
+            sphereStart[leaf + 1] = sphereList.size();
+            triangleStart[leaf + 1] = triangleList.size();
+        }
+
+        MaterialRegistry registry = new MaterialRegistry();
+        spheres = sphereList.toArray(new Sphere[0]);
+        int n = spheres.length;
+        sphereOrdinals = new int[n];
+        sphereMaterials = new int[n];
+        sphereEmissions = new Color[n];
+        cx = new double[n];
+        cy = new double[n];
+        cz = new double[n];
+        radius2 = new double[n];
+        for (int i = 0; i < n; ++i) {
+            Sphere sphere = spheres[i];
+            if (sphere == null) {
+                cx[i] = cy[i] = cz[i] = radius2[i] = Double.NaN;
+                sphereOrdinals[i] = -1;
+                continue;
+            }
+            sphereOrdinals[i] = ordinals.get(sphere);
+            sphereMaterials[i] = registry.indexOf(sphere.getMaterial());
+            sphereEmissions[i] = sphere.getEmission();
+            cx[i] = sphere.center.getX();
+            cy[i] = sphere.center.getY();
+            cz[i] = sphere.center.getZ();
+            // the same arithmetic as the sphere and the triangle themselves
+            radius2[i] = sphere.radius * sphere.radius;
+        }
+
+        triangles = triangleList.toArray(new Triangle[0]);
+        n = triangles.length;
+        triangleOrdinals = new int[n];
+        triangleMaterials = new int[n];
+        triangleEmissions = new Color[n];
+        ax = new double[n];
+        ay = new double[n];
+        az = new double[n];
+        e1x = new double[n];
+        e1y = new double[n];
+        e1z = new double[n];
+        e2x = new double[n];
+        e2y = new double[n];
+        e2z = new double[n];
+        for (int i = 0; i < n; ++i) {
+            Triangle triangle = triangles[i];
+            if (triangle == null) {
+                ax[i] = ay[i] = az[i] = e1x[i] = e1y[i] = e1z[i] = e2x[i] = e2y[i] = e2z[i] = Double.NaN;
+                triangleOrdinals[i] = -1;
+                continue;
+            }
+            triangleOrdinals[i] = ordinals.get(triangle);
+            triangleMaterials[i] = registry.indexOf(triangle.getMaterial());
+            triangleEmissions[i] = triangle.getEmission();
+            Point p1 = triangle.vertices.get(0), p2 = triangle.vertices.get(1), p3 = triangle.vertices.get(2);
+            ax[i] = p1.getX();
+            ay[i] = p1.getY();
+            az[i] = p1.getZ();
+            e1x[i] = p2.getX() - ax[i];
+            e1y[i] = p2.getY() - ay[i];
+            e1z[i] = p2.getZ() - az[i];
+            e2x[i] = p3.getX() - ax[i];
+            e2y[i] = p3.getY() - ay[i];
+            e2z[i] = p3.getZ() - az[i];
+        }
+        materials = new Material[registry.size()];
+        for (int i = 0; i < materials.length; ++i)
+            materials[i] = registry.get(i);
+    }
+
+    /**
+     * Calculates the amount of the empty entries that fill the last lanes of the geometries of a leaf
+     *
+     * @param size  the amount of the geometries
+     * @param lanes the amount of the lanes
+     * @return the amount of the empty entries
+     */
+    private static int padding(int size, int lanes) {
+        return (lanes - size % lanes) % lanes;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the spheres and the triangles of a leaf.
+     * Equally close intersections are resolved by the original order - the later geometry wins.
+     * The intersection carries the stored material and emission of the geometry.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance for the intersection
+     * @param leaf        the index of the leaf
+     * @return the closest intersection, or null if there is none up to the maximum distance
+     */
+    GeoPoint findClosestIntersection(Ray ray, double maxDistance, int leaf) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double px = p0.getX(), py = p0.getY(), pz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        double closest = Double.POSITIVE_INFINITY;
+        int bestOrdinal = -1;
+        int sphere = -1, triangle = -1;
+
+        // every hit shrinks the maximum distance, so the farther geometries are rejected early - but
+        // not an equally close one, that may still win the tie
+        for (int i = sphereStart[leaf], end = sphereEnd[leaf]; i < end; ++i) {
+            double t = Sphere.closestDistance(cx[i], cy[i], cz[i], radius2[i], px, py, pz, dx, dy, dz, maxDistance);
+            if (t <= closest) {
+                closest = t;
+                maxDistance = t * CLOSEST_DISTANCE_MARGIN;
+                bestOrdinal = sphereOrdinals[i];
+                sphere = i;
+            }
+        }
+
+        for (int i = triangleStart[leaf], end = triangleEnd[leaf]; i < end; ++i) {
+            double t = Triangle.intersect(ax[i], ay[i], az[i], e1x[i], e1y[i], e1z[i], e2x[i], e2y[i], e2z[i],
+                    px, py, pz, dx, dy, dz, maxDistance, null);
+            if (t < closest || t == closest && triangleOrdinals[i] > bestOrdinal) {
+                closest = t;
+                maxDistance = t * CLOSEST_DISTANCE_MARGIN;
+                bestOrdinal = triangleOrdinals[i];
+                triangle = i;
+            }
+        }
+
+        if (triangle >= 0) return triangleHit(ray, closest, triangle);
+        return sphere >= 0 ? sphereHit(ray, closest, sphere) : null;
+    }
+
+    /**
+     * Creates the intersection of a ray with a sphere
+     *
+     * @param ray      the ray
+     * @param distance the distance of the intersection
+     * @param sphere   the index of the sphere
+     * @return the intersection
+     */
+    GeoPoint sphereHit(Ray ray, double distance, int sphere) {
+        return new Hit(spheres[sphere], ray.getPoint(distance), materials[sphereMaterials[sphere]],
+                sphereEmissions[sphere]);
+    }
+
+    /**
+     * Creates the intersection of a ray with a triangle
+     *
+     * @param ray      the ray
+     * @param distance the distance of the intersection
+     * @param triangle the index of the triangle
+     * @return the intersection
+     */
+    GeoPoint triangleHit(Ray ray, double distance, int triangle) {
+        return new Hit(triangles[triangle], ray.getPoint(distance), materials[triangleMaterials[triangle]],
+                triangleEmissions[triangle]);
+    }
+
+    /**
+     * Returns the geometries of a leaf that are neither spheres nor triangles
+     *
+     * @param leaf the index of the leaf
+     * @return the other geometries
+     */
+    List<Intersectable> others(int leaf) {
+        return others.get(leaf);
+    }
+}
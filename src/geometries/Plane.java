@@ -6,7 +6,8 @@ import static primitives.Util.*;
 
 /** Plane ia A class that implements the "Geometry" interface.
  * This class represents a plane by a one point on the plane and a vector
- * that orthogonal to the plane (the normal). */
+ * that orthogonal to the plane (the normal).
+ * The plane is infinite, therefore it is unbounded (has no bounding box). */
 public class Plane extends Geometry{
 
     final Point q0;
@@ -90,42 +91,104 @@ public class Plane extends Geometry{
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        Point P0 = ray.getP0();
+        GeoPoint geoPoint = findClosestIntersectionHelper(ray, maxDistance);
+        return geoPoint == null ? null : List.of(geoPoint);
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        double t = intersectionDistance(ray, maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t));
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return Double.isNaN(intersectionDistance(ray, maxDistance)) ? 0 : 1;
+    }
+
+    /**
+     * Calculates the distance along the ray to its intersection with the plane.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance for the intersection
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the maximum distance
+     */
+    double intersectionDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
         Vector v = ray.getDir();
+        return intersectionDistance(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), maxDistance);
+    }
+
+    /**
+     * Calculates the distance along a ray to its intersection with the plane, on the
+     * primitive coordinates of the ray - no vectors are created per ray.
+     *
+     * @param px          the x coordinate of the ray head
+     * @param py          the y coordinate of the ray head
+     * @param pz          the z coordinate of the ray head
+     * @param vx          the x coordinate of the ray direction
+     * @param vy          the y coordinate of the ray direction
+     * @param vz          the z coordinate of the ray direction
+     * @param maxDistance the maximum distance for the intersection
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the maximum distance
+     */
+    double intersectionDistance(double px, double py, double pz, double vx, double vy, double vz,
+                                double maxDistance) {
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
 
-        Vector n = normal;
         //denominator
-        double nv = alignZero(n.dotProduct(v));
+        double nv = alignZero(nx * vx + ny * vy + nz * vz);
 
         // ray is lying in the plane axis
         if (isZero(nv)) {
-            return null;
+            return Double.NaN;
         }
 
+        double dx = q0.getX() - px;
+        double dy = q0.getY() - py;
+        double dz = q0.getZ() - pz;
+
         //ray cannot start from the plane
-        if (q0.equals(P0)) {
-            return null;
+        if (isZero(dx) && isZero(dy) && isZero(dz)) {
+            return Double.NaN;
         }
 
-        Vector P0_Q0 = q0.subtract(P0);
-
         //numerator
-        double nP0Q0 = alignZero(n.dotProduct(P0_Q0));
+        double nP0Q0 = alignZero(nx * dx + ny * dy + nz * dz);
 
         // ray parallel to the plane
         if (isZero(nP0Q0)) {
-            return null;
+            return Double.NaN;
         }
 
         double t = alignZero(nP0Q0 / nv);
 
         if (t < 0 ||  alignZero(t - maxDistance) > 0) {
-            return null;
+            return Double.NaN;
         }
 
+        return t;
+    }
 
-        Point point = ray.getPoint(t);
-
-        return List.of(new GeoPoint(this, point));
+    @Override
+    protected boolean findPacketDistances(RayPacket packet) {
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double qx = q0.getX(), qy = q0.getY(), qz = q0.getZ();
+        double[] px = packet.px, py = packet.py, pz = packet.pz, vx = packet.dx, vy = packet.dy, vz = packet.dz;
+        double[] maxDistance = packet.maxDistance, distances = packet.distances;
+        // the same arithmetic as intersectionDistance, with all the conditions evaluated for every ray
+        for (int i = packet.first; i < packet.end; ++i) {
+            double nv = alignZero(nx * vx[i] + ny * vy[i] + nz * vz[i]);
+            double dx = qx - px[i];
+            double dy = qy - py[i];
+            double dz = qz - pz[i];
+            double nP0Q0 = alignZero(nx * dx + ny * dy + nz * dz);
+            double t = alignZero(nP0Q0 / nv);
+
+            boolean miss = isZero(nv) | isZero(dx) & isZero(dy) & isZero(dz) | isZero(nP0Q0)
+                    | t < 0 | alignZero(t - maxDistance[i]) > 0;
+            distances[i] = miss ? Double.NaN : t;
+        }
+        return true;
     }
 }
@@ -17,6 +17,16 @@ public class Polygon extends Geometry {
    /** Associated plane in which the polygon lays */
    protected final Plane plane;
    private final int size;
+   /** The bounding box of the polygon */
+   private final BoundingBox box;
+   /** The axis (0 for x, 1 for y, 2 for z) that is dropped to project the polygon on a
+    * coordinates plane - the dominant axis of the normal, -1 for a {@link Triangle} */
+   private final int dropAxis;
+   /** The lines of the edges of the projected polygon, 3 numbers (a, b, c) per edge: a point
+    * (u, v) is inside the polygon if a*u + b*v - c is positive for every edge. (a, b) is the
+    * unit normal of the edge, so the value is the distance of the point from the edge.
+    * Null for a {@link Triangle}, that has its own intersection. */
+   private final double[] edgeLines;
 
    /** Polygon constructor based on vertices list. The list must be ordered by edge
     * path. The polygon must be convex.
@@ -48,9 +58,21 @@ public class Polygon extends Geometry {
       // polygon with this plane.
       // The plane holds the invariant normal (orthogonal unit) vector to the polygon
       plane         = new Plane(vertices[0], vertices[1], vertices[2]);
-      if (size == 3) return; // no need for more tests for a Triangle
+      box           = new BoundingBox(vertices);
+      // a Triangle is intersected by its own edges, it needs no projected edges
+      if (this instanceof Triangle) {
+         dropAxis  = -1;
+         edgeLines = null;
+         return;
+      }
 
       Vector  n  = plane.getNormal();
+      double nx = Math.abs(n.getX()), ny = Math.abs(n.getY()), nz = Math.abs(n.getZ());
+      dropAxis      = nx >= ny && nx >= nz ? 0 : ny >= nz ? 1 : 2;
+      edgeLines     = edgeLines(vertices, dropAxis);
+      // no need for more tests for a Triangle
+      if (size == 3) return;
+
       // Subtracting any subsequent points will throw an IllegalArgumentException
       // because of Zero Vector if they are in the same point
       Vector  edge1    = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
@@ -81,50 +103,171 @@ public class Polygon extends Geometry {
    @Override
    public Vector getNormal(Point point) { return plane.getNormal(point); }
 
+   @Override
+   public BoundingBox getBoundingBox() { return box; }
+
    @Override
    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+      GeoPoint geoPoint = findClosestIntersectionHelper(ray, maxDistance);
+      return geoPoint == null ? null : List.of(geoPoint);
+   }
 
-      // Find intersections between the ray and the polygon's plane
-      List<GeoPoint> planeIntersections = plane.findGeoIntersections(ray, maxDistance);
+   @Override
+   protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+      double t = intersectionDistance(ray, maxDistance);
+      return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t));
+   }
 
-      // Return null if there are no plane intersections
-      if (planeIntersections == null) {
-         return null;
-      }
+   @Override
+   protected int countIntersections(Ray ray, double maxDistance) {
+      return Double.isNaN(intersectionDistance(ray, maxDistance)) ? 0 : 1;
+   }
 
-      // Compute necessary vectors and points for intersection calculation
-      Point P0 = ray.getP0();
+   /**
+    * Calculates the distance along the ray to its intersection with the polygon.
+    * The intersection point with the plane is projected on a coordinates plane and tested
+    * against the precomputed lines of the edges, on primitive coordinates only.
+    * @param  ray         the ray
+    * @param  maxDistance the maximum distance for the intersection
+    * @return             the distance (ray parameter t), or NaN if there is no intersection
+    *                     up to the maximum distance
+    */
+   double intersectionDistance(Ray ray, double maxDistance) {
+      Point p0 = ray.getP0();
       Vector dir = ray.getDir();
-      Point P1 = vertices.get(1);
-      Point P2 = vertices.get(0);
-      Vector v1 = P1.subtract(P0);
-      Vector v2 = P2.subtract(P0);
-
-      // Check if the ray intersects the polygon using sign calculation
-      double sign = alignZero(dir.dotProduct(v1.crossProduct(v2)));
-      if (isZero(sign)) {
-         return null;
+      return intersectionDistance(p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDistance);
+   }
+
+   /**
+    * Calculates the distance along a ray to its intersection with the polygon, on the
+    * primitive coordinates of the ray.
+    * @param  px          the x coordinate of the ray head
+    * @param  py          the y coordinate of the ray head
+    * @param  pz          the z coordinate of the ray head
+    * @param  dx          the x coordinate of the ray direction
+    * @param  dy          the y coordinate of the ray direction
+    * @param  dz          the z coordinate of the ray direction
+    * @param  maxDistance the maximum distance for the intersection
+    * @return             the distance (ray parameter t), or NaN if there is no intersection
+    *                     up to the maximum distance
+    */
+   double intersectionDistance(double px, double py, double pz, double dx, double dy, double dz,
+                               double maxDistance) {
+
+      // Find the intersection between the ray and the polygon's plane
+      double t = plane.intersectionDistance(px, py, pz, dx, dy, dz, maxDistance);
+
+      // Return NaN if there is no plane intersection
+      if (Double.isNaN(t)) {
+         return Double.NaN;
       }
 
-      boolean positive = sign > 0;
+      // Project the intersection point on the coordinates plane of the edge lines
+      double u, v;
+      switch (dropAxis) {
+         case 0 -> {
+            u = py + dy * t;
+            v = pz + dz * t;
+         }
+         case 1 -> {
+            u = pz + dz * t;
+            v = px + dx * t;
+         }
+         default -> {
+            u = px + dx * t;
+            v = py + dy * t;
+         }
+      }
 
-      // Iterate through all vertices of the polygon to check if they lie on the same side of the ray
-      for (int i = vertices.size() - 1; i > 0; --i) {
-         v1 = v2;
-         v2 = vertices.get(i).subtract(P0);
-         sign = alignZero(dir.dotProduct(v1.crossProduct(v2)));
+      // The point must be strictly inside every edge, the test stops at the first edge that fails
+      for (int i = 0; i < edgeLines.length; i += 3)
+         if (alignZero(edgeLines[i] * u + edgeLines[i + 1] * v - edgeLines[i + 2]) <= 0)
+            return Double.NaN;
+
+      return t;
+   }
+
+   @Override
+   protected boolean findPacketDistances(RayPacket packet) {
+      // the distances to the plane, that are kept for the rays inside all the edges
+      plane.findPacketDistances(packet);
 
-         // Return null if the vertex lies on the plane of the polygon
-         if (isZero(sign)) {
-            return null;
+      // the coordinates that are projected on the coordinates plane of the edge lines
+      double[] pu, du, pv, dv;
+      switch (dropAxis) {
+         case 0 -> {
+            pu = packet.py; du = packet.dy;
+            pv = packet.pz; dv = packet.dz;
          }
+         case 1 -> {
+            pu = packet.pz; du = packet.dz;
+            pv = packet.px; dv = packet.dx;
+         }
+         default -> {
+            pu = packet.px; du = packet.dx;
+            pv = packet.py; dv = packet.dy;
+         }
+      }
+
+      double[] distances = packet.distances;
+      // the same arithmetic as intersectionDistance, with all the edges tested for every ray
+      // (a ray that misses the plane has a NaN distance, so it is outside every edge)
+      for (int i = packet.first; i < packet.end; ++i) {
+         double t = distances[i];
+         double u = pu[i] + du[i] * t;
+         double v = pv[i] + dv[i] * t;
+         boolean inside = true;
+         for (int edge = 0; edge < edgeLines.length; edge += 3)
+            inside &= alignZero(edgeLines[edge] * u + edgeLines[edge + 1] * v - edgeLines[edge + 2]) > 0;
+         distances[i] = inside ? t : Double.NaN;
+      }
+      return true;
+   }
 
-         // Return null if the vertex lies on the opposite side of the ray
-         if (positive != (sign > 0)) {
-            return null;
+   /** Calculates the lines of the edges of a convex polygon that is projected on a
+    * coordinates plane, with the normals of the lines pointing into the polygon
+    * @param  vertices the vertices of the polygon, ordered by edge path
+    * @param  dropAxis the axis that is dropped by the projection
+    * @return          the lines, 3 numbers (a, b, c) per edge */
+   private static double[] edgeLines(Point[] vertices, int dropAxis) {
+      int size = vertices.length;
+      double[] us = new double[size], vs = new double[size];
+      for (int i = 0; i < size; ++i) {
+         Point vertex = vertices[i];
+         switch (dropAxis) {
+            case 0 -> {
+               us[i] = vertex.getY();
+               vs[i] = vertex.getZ();
+            }
+            case 1 -> {
+               us[i] = vertex.getZ();
+               vs[i] = vertex.getX();
+            }
+            default -> {
+               us[i] = vertex.getX();
+               vs[i] = vertex.getY();
+            }
          }
       }
 
-      return List.of(new GeoPoint(this, planeIntersections.get(0).point));
+      // the sign of the area of the projected polygon tells the direction of the edge path
+      double area = 0;
+      for (int i = 0, j = size - 1; i < size; j = i++)
+         area += us[j] * vs[i] - us[i] * vs[j];
+      double orientation = area > 0 ? 1 : -1;
+
+      double[] lines = new double[3 * size];
+      for (int i = 0, j = size - 1; i < size; j = i++) {
+         // the normal of the edge from vertex j to vertex i, rotated into the polygon
+         double a = -(vs[i] - vs[j]) * orientation;
+         double b = (us[i] - us[j]) * orientation;
+         double length = Math.sqrt(a * a + b * b);
+         a /= length;
+         b /= length;
+         lines[3 * j] = a;
+         lines[3 * j + 1] = b;
+         lines[3 * j + 2] = a * us[j] + b * vs[j];
+      }
+      return lines;
    }
 }
@@ -0,0 +1,145 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * A packet of coherent rays (e.g. the primary rays of a block of pixels), stored as a
+ * structure of arrays of primitive coordinates. The packet is traced through a
+ * {@link Geometries} hierarchy at once: every node is fetched and its box is tested once
+ * for all the rays, and the intersection kernels of the geometries run in tight loops
+ * over the arrays, writing distances only - an intersection point is created just for
+ * a ray whose closest intersection is replaced.<br/>
+ * A packet is reused for many blocks (one packet per thread), it is not thread safe.
+ */
+public class RayPacket {
+    /** The rays of the packet */
+    final Ray[] rays;
+    /** The coordinates of the heads of the rays */
+    final double[] px, py, pz;
+    /** The coordinates of the directions of the rays */
+    final double[] dx, dy, dz;
+    /** The inverses of the coordinates of the directions, for the box tests */
+    final double[] invX, invY, invZ;
+    /** The maximum distance of every ray, shrunk to the closest intersection found so far */
+    final double[] maxDistance;
+    /** The closest intersection of every ray found so far */
+    final GeoPoint[] closest;
+    /** The distances of the intersections of every ray with the geometry that is being intersected, NaN for a miss */
+    final double[] distances;
+    /** The intersections of every ray with a geometry that has no loop for the distances */
+    final GeoPoint[] candidates;
+    /** The amount of the rays in the packet */
+    int size = 0;
+    /** The range of the rays that enter the box of the node that is being visited: the first ray and the end */
+    int first = 0, end = 0;
+
+    /**
+     * Constructs an empty packet
+     *
+     * @param capacity the maximal amount of rays
+     */
+    public RayPacket(int capacity) {
+        rays = new Ray[capacity];
+        px = new double[capacity];
+        py = new double[capacity];
+        pz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        invX = new double[capacity];
+        invY = new double[capacity];
+        invZ = new double[capacity];
+        maxDistance = new double[capacity];
+        closest = new GeoPoint[capacity];
+        distances = new double[capacity];
+        candidates = new GeoPoint[capacity];
+    }
+
+    /** @return the maximal amount of rays in the packet */
+    public int capacity() {
+        return rays.length;
+    }
+
+    /**
+     * Loads rays into the packet, for a search of their closest intersections
+     *
+     * @param rays  the rays
+     * @param count the amount of the rays, up to the capacity of the packet
+     */
+    public void load(Ray[] rays, int count) {
+        if (count > this.rays.length)
+            throw new IllegalArgumentException("Too many rays for the packet");
+        for (int i = 0; i < count; ++i) {
+            Ray ray = rays[i];
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            this.rays[i] = ray;
+            px[i] = p0.getX();
+            py[i] = p0.getY();
+            pz[i] = p0.getZ();
+            dx[i] = dir.getX();
+            dy[i] = dir.getY();
+            dz[i] = dir.getZ();
+            invX[i] = 1 / dx[i];
+            invY[i] = 1 / dy[i];
+            invZ[i] = 1 / dz[i];
+            maxDistance[i] = Double.POSITIVE_INFINITY;
+            closest[i] = null;
+        }
+        size = count;
+        first = 0;
+        end = count;
+    }
+
+    /** @return the amount of the rays in the packet */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the closest intersection of a ray of the packet, after the search
+     *
+     * @param index the index of the ray
+     * @return the closest intersection, or null if the ray hits nothing
+     */
+    public GeoPoint getClosest(int index) {
+        return closest[index];
+    }
+
+    /**
+     * Narrows the range of the rays to the first and the last ray of the range that hit a box
+     * closer than their maximum distance. The neighbouring rays of a coherent packet hit the
+     * same boxes, so the loops over the range skip most of the rays that miss the box.
+     *
+     * @param box the box
+     * @return true if at least one ray of the range may hit the box, otherwise the range is not changed
+     */
+    boolean narrow(BoundingBox box) {
+        int first = this.first, end = this.end;
+        while (first < end && entryDistance(box, first) == Double.POSITIVE_INFINITY)
+            ++first;
+        if (first == end)
+            return false;
+        while (entryDistance(box, end - 1) == Double.POSITIVE_INFINITY)
+            --end;
+        this.first = first;
+        this.end = end;
+        return true;
+    }
+
+    /**
+     * Calculates the distance at which a ray of the packet enters a box
+     *
+     * @param box   the box
+     * @param index the index of the ray
+     * @return the entry distance, or positive infinity if the ray misses the box up to its
+     *         maximum distance
+     */
+    double entryDistance(BoundingBox box, int index) {
+        return box.entryDistance(px[index], py[index], pz[index], invX[index], invY[index], invZ[index],
+                maxDistance[index]);
+    }
+}
@@ -4,7 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import static primitives.Util.*;
+import static primitives.Util.alignZero;
 import java.util.List;
 
 /**
@@ -14,6 +14,10 @@ import java.util.List;
 public class Sphere extends RadialGeometry {
 
     final Point center;
+    /** The square of the radius */
+    private final double radius2;
+    /** The bounding box of the sphere */
+    private final BoundingBox box;
 
     /**
      * create a new Sphere object with the specified point and radius
@@ -25,6 +29,14 @@ public class Sphere extends RadialGeometry {
     public Sphere(double radius, Point center) {
         super(radius); //call to the father constructor with the radius
         this.center = center;
+        this.radius2 = radius * radius;
+        this.box = new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
     }
 
     /**
@@ -36,44 +48,31 @@ public class Sphere extends RadialGeometry {
 
     @Override
     public Vector getNormal(Point point) {
-        return point.subtract(center).normalize();
+        return Vector.direction(center, point);
     }
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-
-        // Get the start point and direction of the ray
-        Point p0 = ray.getP0();
         Vector dir = ray.getDir();
+        Point p0 = ray.getP0();
 
-        // Get the radius of the sphere
-        double r = this.radius;
-
-        // Calculate vector from the ray's start point to the center of the sphere
-        Vector u;
-
-        try {
-            u = this.center.subtract(p0);
-        } catch (IllegalArgumentException e) {
-            // If the ray starts at the center of the sphere, return a single intersection point
-            return List.of(new GeoPoint(this, p0.add(dir.scale(r))));
-        }
-
-        // Calculate necessary values for intersection calculation
-        double tm = u.dotProduct(dir);
-        double ul = u.length();
-        double d = Math.sqrt(ul * ul - tm * tm);
+        // Calculate vector from the ray's start point to the center of the sphere (as primitive coordinates)
+        double ux = center.getX() - p0.getX();
+        double uy = center.getY() - p0.getY();
+        double uz = center.getZ() - p0.getZ();
+        double tm = ux * dir.getX() + uy * dir.getY() + uz * dir.getZ();
+        // c is positive if the ray starts outside the sphere
+        double c = ux * ux + uy * uy + uz * uz - radius2;
 
-        // Check if there are no intersections
-        if (d >= r) {
-            return null;
-        }
+        // the ray starts outside the sphere and goes away from it
+        if (c > 0 && tm <= 0) return null;
+        // the ray misses the sphere (or is tangent to it)
+        double th2 = alignZero(tm * tm - c);
+        if (th2 <= 0) return null;
 
-        // Calculate the intersection points
-        double th = Math.sqrt(r * r - d * d);
-
-        double t1 = tm + th;
-        double t2 = tm - th;
+        double q = largerRoot(tm, th2);
+        double t1 = Math.max(q, c / q);
+        double t2 = Math.min(q, c / q);
 
         if (t1 > 0 && t2 > 0 && alignZero(t1 - maxDistance) <= 0 && alignZero(t2 - maxDistance) <= 0) {
             return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
@@ -89,4 +88,143 @@ public class Sphere extends RadialGeometry {
 
         return null;
     }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        Vector dir = ray.getDir();
+        Point p0 = ray.getP0();
+        double t = closestDistance(p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+                maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t));
+    }
+
+    @Override
+    protected boolean findPacketDistances(RayPacket packet) {
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        double[] px = packet.px, py = packet.py, pz = packet.pz, dx = packet.dx, dy = packet.dy, dz = packet.dz;
+        double[] maxDistance = packet.maxDistance, distances = packet.distances;
+        // the same arithmetic as closestDistance, with all the conditions evaluated for every ray
+        for (int i = packet.first; i < packet.end; ++i) {
+            double ux = cx - px[i];
+            double uy = cy - py[i];
+            double uz = cz - pz[i];
+            double tm = ux * dx[i] + uy * dy[i] + uz * dz[i];
+            double c = ux * ux + uy * uy + uz * uz - radius2;
+            double th2 = alignZero(tm * tm - c);
+            double max = maxDistance[i];
+
+            double th = Math.sqrt(th2);
+            double q = tm >= 0 ? tm + th : tm - th;
+            double t1 = Math.max(q, c / q);
+            double t2 = Math.min(q, c / q);
+
+            boolean miss = c > 0 & tm <= 0 | th2 <= 0 | c > 0 & tm > max & (tm - max) * (tm - max) > th2;
+            boolean near = t2 > 0 & alignZero(t2 - max) <= 0;
+            boolean far = t1 > 0 & alignZero(t1 - max) <= 0;
+            distances[i] = miss ? Double.NaN : near ? t2 : far ? t1 : Double.NaN;
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the distance along a ray to its closest intersection with the sphere, on the
+     * primitive coordinates of the ray.
+     *
+     * @param px          the x coordinate of the ray head
+     * @param py          the y coordinate of the ray head
+     * @param pz          the z coordinate of the ray head
+     * @param dx          the x coordinate of the ray direction
+     * @param dy          the y coordinate of the ray direction
+     * @param dz          the z coordinate of the ray direction
+     * @param maxDistance the maximum distance for the intersection
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the
+     *         maximum distance
+     */
+    private double closestDistance(double px, double py, double pz, double dx, double dy, double dz,
+                                   double maxDistance) {
+        return closestDistance(center.getX(), center.getY(), center.getZ(), radius2, px, py, pz, dx, dy, dz,
+                maxDistance);
+    }
+
+    /**
+     * Calculates the distance along a ray to its closest intersection with a sphere, on primitive
+     * coordinates only - for the spheres that are stored as arrays of coordinates as well.
+     *
+     * @param cx          the x coordinate of the center
+     * @param cy          the y coordinate of the center
+     * @param cz          the z coordinate of the center
+     * @param radius2     the square of the radius
+     * @param px          the x coordinate of the ray head
+     * @param py          the y coordinate of the ray head
+     * @param pz          the z coordinate of the ray head
+     * @param dx          the x coordinate of the ray direction
+     * @param dy          the y coordinate of the ray direction
+     * @param dz          the z coordinate of the ray direction
+     * @param maxDistance the maximum distance for the intersection
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the
+     *         maximum distance
+     */
+    static double closestDistance(double cx, double cy, double cz, double radius2,
+                                  double px, double py, double pz, double dx, double dy, double dz,
+                                  double maxDistance) {
+        double ux = cx - px;
+        double uy = cy - py;
+        double uz = cz - pz;
+        double tm = ux * dx + uy * dy + uz * dz;
+        double c = ux * ux + uy * uy + uz * uz - radius2;
+
+        if (c > 0 && tm <= 0) return Double.NaN;
+        double th2 = alignZero(tm * tm - c);
+        if (th2 <= 0) return Double.NaN;
+        // the nearer point cannot be in range if it is beyond the maximum distance
+        // (checked on the squares, before the square root)
+        if (c > 0 && tm > maxDistance && (tm - maxDistance) * (tm - maxDistance) > th2) return Double.NaN;
+
+        double q = largerRoot(tm, th2);
+        double t1 = Math.max(q, c / q);
+        double t2 = Math.min(q, c / q);
+
+        // the nearer point (t2 <= t1) is the closest one if it is in front of the ray head
+        if (t2 > 0 && alignZero(t2 - maxDistance) <= 0) return t2;
+        if (t1 > 0 && alignZero(t1 - maxDistance) <= 0) return t1;
+        return Double.NaN;
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        Vector dir = ray.getDir();
+        Point p0 = ray.getP0();
+        double ux = center.getX() - p0.getX();
+        double uy = center.getY() - p0.getY();
+        double uz = center.getZ() - p0.getZ();
+        double tm = ux * dir.getX() + uy * dir.getY() + uz * dir.getZ();
+        double c = ux * ux + uy * uy + uz * uz - radius2;
+
+        if (c > 0 && tm <= 0) return 0;
+        double th2 = alignZero(tm * tm - c);
+        if (th2 <= 0) return 0;
+
+        double q = largerRoot(tm, th2);
+        double t1 = q;
+        double t2 = c / q;
+
+        int count = 0;
+        if (t1 > 0 && alignZero(t1 - maxDistance) <= 0) ++count;
+        if (t2 > 0 && alignZero(t2 - maxDistance) <= 0) ++count;
+        return count;
+    }
+
+    /**
+     * Calculates the root of the intersection equation t^2 - 2*tm*t + c = 0 whose magnitude is
+     * the larger one, tm &#177; th with the sign of tm, so there is no cancellation. The other
+     * root is c divided by it.
+     *
+     * @param tm  the projection of the vector to the center on the ray direction
+     * @param th2 the square of half of the chord, positive
+     * @return the root
+     */
+    private static double largerRoot(double tm, double th2) {
+        double th = Math.sqrt(th2);
+        return tm >= 0 ? tm + th : tm - th;
+    }
 }
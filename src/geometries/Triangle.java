@@ -2,48 +2,167 @@ package geometries;
 
 
 import primitives.*;
-import java.util.List;
 import static primitives.Util.*;
 
 public class Triangle extends Polygon{
 
+    /** The coordinates of the first vertex */
+    private final double ax, ay, az;
+    /** The edge from the first vertex to the second one */
+    private final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third one */
+    private final double e2x, e2y, e2z;
+
     /** constructor for triangle. call to the father constructor because triangle is a type of polygon.
+     * The vertex and the edges of the Möller–Trumbore intersection are calculated once, here.
      * @param p1 vertex of the triangle
      * @param p2 vertex of the triangle
      * @param p3 vertex of the triangle */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1,p2,p3);
+        ax = p1.getX();
+        ay = p1.getY();
+        az = p1.getZ();
+        e1x = p2.getX() - ax;
+        e1y = p2.getY() - ay;
+        e1z = p2.getZ() - az;
+        e2x = p3.getX() - ax;
+        e2y = p3.getY() - ay;
+        e2z = p3.getZ() - az;
+    }
+
+    @Override
+    double intersectionDistance(double px, double py, double pz, double dx, double dy, double dz,
+                                double maxDistance) {
+        return intersect(px, py, pz, dx, dy, dz, maxDistance, null);
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance){
+    protected boolean findPacketDistances(RayPacket packet) {
+        double[] px = packet.px, py = packet.py, pz = packet.pz, dx = packet.dx, dy = packet.dy, dz = packet.dz;
+        double[] maxDistance = packet.maxDistance, distances = packet.distances;
+        // the same arithmetic as intersect, with all the conditions evaluated for every ray
+        for (int i = packet.first; i < packet.end; ++i) {
+            double hx = dy[i] * e2z - dz[i] * e2y;
+            double hy = dz[i] * e2x - dx[i] * e2z;
+            double hz = dx[i] * e2y - dy[i] * e2x;
+            double det = e1x * hx + e1y * hy + e1z * hz;
+            double invDet = 1 / det;
 
-        List<GeoPoint> pointList = plane.findGeoIntersections(ray, maxDistance);
+            double sx = px[i] - ax, sy = py[i] - ay, sz = pz[i] - az;
+            double u = alignZero((sx * hx + sy * hy + sz * hz) * invDet);
+            double qx = sy * e1z - sz * e1y;
+            double qy = sz * e1x - sx * e1z;
+            double qz = sx * e1y - sy * e1x;
+            double v = alignZero((dx[i] * qx + dy[i] * qy + dz[i] * qz) * invDet);
+            double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
 
-        // Check if the ray intersects the plane of the triangle
-        if(pointList == null) {
-            return null;
+            boolean miss = isZero(det) | u <= 0 | u >= 1 | v <= 0 | alignZero(u + v - 1) >= 0
+                    | t <= 0 | alignZero(t - maxDistance[i]) > 0;
+            distances[i] = miss ? Double.NaN : t;
         }
+        return true;
+    }
+
+    /**
+     * Intersects a ray with the triangle by the Möller–Trumbore algorithm, on primitive
+     * coordinates and the precomputed edges, without creating any object.<br/>
+     * The hit point is p1 + u(p2 - p1) + v(p3 - p1), points on the edges are not intersections.
+     *
+     * @param ray          the ray
+     * @param maxDistance  the maximum distance for the intersection
+     * @param barycentrics an array for the barycentric coordinates u and v of the hit point,
+     *                     or null if they are not needed
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the
+     *         maximum distance
+     */
+    public double intersect(Ray ray, double maxDistance, double[] barycentrics) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        return intersect(p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDistance,
+                barycentrics);
+    }
+
+    /**
+     * Intersects a ray, given by its primitive coordinates, with the triangle by the
+     * Möller–Trumbore algorithm - see {@link #intersect(Ray, double, double[])}.
+     *
+     * @param px           the x coordinate of the ray head
+     * @param py           the y coordinate of the ray head
+     * @param pz           the z coordinate of the ray head
+     * @param dx           the x coordinate of the ray direction
+     * @param dy           the y coordinate of the ray direction
+     * @param dz           the z coordinate of the ray direction
+     * @param maxDistance  the maximum distance for the intersection
+     * @param barycentrics an array for the barycentric coordinates u and v of the hit point,
+     *                     or null if they are not needed
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the
+     *         maximum distance
+     */
+    double intersect(double px, double py, double pz, double dx, double dy, double dz,
+                     double maxDistance, double[] barycentrics) {
+        return intersect(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, px, py, pz, dx, dy, dz, maxDistance,
+                barycentrics);
+    }
+
+    /**
+     * Intersects a ray with a triangle by the Möller–Trumbore algorithm, on primitive coordinates
+     * only - for the triangles that are stored as arrays of coordinates as well.
+     *
+     * @param ax           the x coordinate of the first vertex
+     * @param ay           the y coordinate of the first vertex
+     * @param az           the z coordinate of the first vertex
+     * @param e1x          the x coordinate of the edge from the first vertex to the second one
+     * @param e1y          the y coordinate of the edge from the first vertex to the second one
+     * @param e1z          the z coordinate of the edge from the first vertex to the second one
+     * @param e2x          the x coordinate of the edge from the first vertex to the third one
+     * @param e2y          the y coordinate of the edge from the first vertex to the third one
+     * @param e2z          the z coordinate of the edge from the first vertex to the third one
+     * @param px           the x coordinate of the ray head
+     * @param py           the y coordinate of the ray head
+     * @param pz           the z coordinate of the ray head
+     * @param dx           the x coordinate of the ray direction
+     * @param dy           the y coordinate of the ray direction
+     * @param dz           the z coordinate of the ray direction
+     * @param maxDistance  the maximum distance for the intersection
+     * @param barycentrics an array for the barycentric coordinates u and v of the hit point,
+     *                     or null if they are not needed
+     * @return the distance (ray parameter t), or NaN if there is no intersection up to the
+     *         maximum distance
+     */
+    static double intersect(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                            double e2x, double e2y, double e2z,
+                            double px, double py, double pz, double dx, double dy, double dz,
+                            double maxDistance, double[] barycentrics) {
+
+        // h = dir x e2, the determinant is e1 * h
+        double hx = dy * e2z - dz * e2y;
+        double hy = dz * e2x - dx * e2z;
+        double hz = dx * e2y - dy * e2x;
+        double det = e1x * hx + e1y * hy + e1z * hz;
+        // the ray is parallel to the plane of the triangle
+        if (isZero(det)) return Double.NaN;
+        double invDet = 1 / det;
 
-        // Calculate the normal vectors of the triangle's edges
-        Vector v1 = vertices.get(0).subtract(ray.getP0());
-        Vector v2 = vertices.get(1).subtract(ray.getP0());
-        Vector v3 = vertices.get(2).subtract(ray.getP0());
+        // s = p0 - p1
+        double sx = px - ax, sy = py - ay, sz = pz - az;
+        double u = alignZero((sx * hx + sy * hy + sz * hz) * invDet);
+        if (u <= 0 || u >= 1) return Double.NaN;
 
-        Vector n1 = v1.crossProduct(v2).normalize();
-        Vector n2 = v2.crossProduct(v3).normalize();
-        Vector n3 = v3.crossProduct(v1).normalize();
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.NaN;
 
-        // Calculate the dot products between the ray's direction vector and the normal vectors of the edges
-        double vn1 = alignZero(ray.getDir().dotProduct(n1));
-        double vn2 = alignZero(ray.getDir().dotProduct(n2));
-        double vn3 = alignZero(ray.getDir().dotProduct(n3));
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0 || alignZero(t - maxDistance) > 0) return Double.NaN;
 
-        // Check if the ray intersects the triangle
-        if((vn1 > 0 && vn2 > 0 && vn3 > 0) || (vn1 < 0 && vn2 < 0 && vn3 < 0)) {
-            return List.of(new GeoPoint(this, pointList.get(0).point));
+        if (barycentrics != null) {
+            barycentrics[0] = u;
+            barycentrics[1] = v;
         }
-        else
-            return null;
+        return t;
     }
 }
@@ -13,7 +13,7 @@ import static primitives.Util.*;
 public class Tube extends RadialGeometry {
     Ray axisRay;
 
-    /** crate a new Tube object
+    /** crate a new Tube object. The tube is infinite, therefore it is unbounded (has no bounding box)
      * @param radius the radius of the base of the tube.
      * @param axisRay */
     public Tube(double radius, Ray axisRay) {
@@ -58,14 +58,23 @@ public class PointLight extends Light implements LightSource {
 
     @Override
     public Color getIntensity(Point p){
+        return this.getIntensity().reduce(attenuation(p));
+    }
+
+    /**
+     * Calculates the attenuation factor of the light at a given point, by the distance from the light.
+     *
+     * @param p The point at which to calculate the attenuation.
+     * @return The attenuation factor (the intensity is divided by it).
+     */
+    protected double attenuation(Point p) {
         double d = p.distance(position);
-        double denominator = Kc + Kl * d + Kq * d * d;
-        return this.getIntensity().reduce(denominator);
+        return Kc + Kl * d + Kq * d * d;
     }
 
     @Override
     public Vector getL(Point p){
-        return p.subtract(position).normalize();
+        return Vector.direction(position, p);
     }
 
     @Override
@@ -51,7 +51,7 @@ public class SpotLight extends PointLight {
     public Color getIntensity(Point p) {
 
         // Calculate the dot product between the light vector and the spotlight direction
-        double projection = this.dir.dotProduct(getL(p));
+        double projection = dir.dotProduct(getL(p));
 
         // Check if the point is outside the beam of the spotlight
         if (isZero(projection)) {
@@ -64,6 +64,10 @@ public class SpotLight extends PointLight {
         //double intensity = Math.pow(max, narrowness);
 
         // Scale the intensity with the super intensity
-        return super.getIntensity(p).scale(max);
+        // (creates one color instead of the attenuated and then the scaled one)
+        Color intensity = getIntensity();
+        double attenuation = attenuation(p);
+        return new Color(intensity.getRed() / attenuation * max, intensity.getGreen() / attenuation * max,
+                intensity.getBlue() / attenuation * max);
     }
 }
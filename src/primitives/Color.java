@@ -53,6 +53,34 @@ public class Color {
       return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
    }
 
+   /** Packs the color into an int in the RGB format of java.awt (8 bits per component, blue
+    * in the lowest byte), without creating a java.awt.Color object. Any component bigger than 255
+    * is set to 255, as in {@link #getColor()}
+    * @return the packed RGB color */
+   public int getRGB() {
+      int ir = (int) rgb.d1;
+      int ig = (int) rgb.d2;
+      int ib = (int) rgb.d3;
+      return (ir > 255 ? 255 : ir) << 16 | (ig > 255 ? 255 : ig) << 8 | (ib > 255 ? 255 : ib);
+   }
+
+   /** @return the red component of the color */
+   public double getRed() { return rgb.d1; }
+
+   /** @return the green component of the color */
+   public double getGreen() { return rgb.d2; }
+
+   /** @return the blue component of the color */
+   public double getBlue() { return rgb.d3; }
+
+   /** Operation of adding this and another color (by component), without the array
+    * of the variable arguments version
+    * @param  color the other color to add
+    * @return       new Color object which is a result of the operation */
+   public Color add(Color color) {
+      return new Color(rgb.d1 + color.rgb.d1, rgb.d2 + color.rgb.d2, rgb.d3 + color.rgb.d3);
+   }
+
    /** Operation of adding this and one or more other colors (by component)
     * @param  colors one or more other colors to add
     * @return        new Color object which is a result of the operation */
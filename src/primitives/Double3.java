@@ -103,6 +103,30 @@ public class Double3 {
         return new Double3(d1 * rhs.d1, d2 * rhs.d2, d3 * rhs.d3);
     }
 
+    /** Checks whether all the numbers of the product of this and another triad are lower
+     * than a test number, without creating the product triad
+     * @param  rhs right handle side operand for product
+     * @param  k   the test number
+     * @return true if all the numbers of the product are less than k, false otherwise */
+    public boolean productLowerThan(Double3 rhs, double k) {
+        return d1 * rhs.d1 < k && d2 * rhs.d2 < k && d3 * rhs.d3 < k;
+    }
+
+    /** @return the first number of the triad */
+    public double getD1() {
+        return d1;
+    }
+
+    /** @return the second number of the triad */
+    public double getD2() {
+        return d2;
+    }
+
+    /** @return the third number of the triad */
+    public double getD3() {
+        return d3;
+    }
+
     /** Checks whether all the numbers are lower than a test number
      * @param  k the test number
      * @return true if all the numbers are less than k, false otherwise */
@@ -2,119 +2,200 @@ package primitives;
 
 /**
  * Represents the material properties of a geometric object.
+ * A material is immutable - its {@code withX} methods return a changed copy - so one instance
+ * may be shared by any amount of geometries, see {@link MaterialRegistry}. Materials are equal
+ * when their coefficients are exactly equal.
  */
 public class Material {
+    /** The material without any coefficient - the default material of the geometries. */
+    public static final Material NONE = new Material();
+
     /** The diffuse reflection coefficient of the material. */
-    public Double3 Kd = Double3.ZERO;
+    private final Double3 Kd;
 
     /** The specular reflection coefficient of the material. */
-    public Double3 Ks = Double3.ZERO;
+    private final Double3 Ks;
 
     /** The transmission coefficient of the material. */
-    public Double3 Kt = Double3.ZERO;
+    private final Double3 Kt;
 
     /** The reflection coefficient of the material. */
-    public Double3 Kr = Double3.ZERO;
+    private final Double3 Kr;
 
     /** The shininess factor of the material. */
-    public int nShininess = 0;
+    private final int nShininess;
+
+    /** Whether the material has a specular reflection, calculated once for all the shaded points. */
+    private final boolean specular;
+
+    /** Constructs a material without any coefficient. */
+    public Material() {
+        this(Double3.ZERO, Double3.ZERO, Double3.ZERO, Double3.ZERO, 0);
+    }
 
     /**
-     * Sets the transmission coefficient of the material.
+     * Constructs a material.
      *
-     * @param kt The transmission coefficient as a Double3 object.
-     * @return The Material object with the updated transmission coefficient.
+     * @param kd         The diffuse reflection coefficient.
+     * @param ks         The specular reflection coefficient.
+     * @param kt         The transmission coefficient.
+     * @param kr         The reflection coefficient.
+     * @param nShininess The shininess factor.
      */
-    public Material setKt(Double3 kt) {
+    private Material(Double3 kd, Double3 ks, Double3 kt, Double3 kr, int nShininess) {
+        Kd = kd;
+        Ks = ks;
         Kt = kt;
-        return this;
+        Kr = kr;
+        this.nShininess = nShininess;
+        specular = ks.getD1() != 0 || ks.getD2() != 0 || ks.getD3() != 0;
+    }
+
+    /** @return The diffuse reflection coefficient of the material. */
+    public Double3 getKd() {
+        return Kd;
+    }
+
+    /** @return The specular reflection coefficient of the material. */
+    public Double3 getKs() {
+        return Ks;
+    }
+
+    /** @return The transmission coefficient of the material. */
+    public Double3 getKt() {
+        return Kt;
+    }
+
+    /** @return The reflection coefficient of the material. */
+    public Double3 getKr() {
+        return Kr;
+    }
+
+    /** @return The shininess factor of the material. */
+    public int getShininess() {
+        return nShininess;
+    }
+
+    /** @return true if the material has a specular reflection, i.e. its specular coefficient is not zero. */
+    public boolean isSpecular() {
+        return specular;
+    }
+
+    /**
+     * Returns a copy of the material with another transmission coefficient.
+     *
+     * @param kt The transmission coefficient as a Double3 object.
+     * @return A copy of the material with the given transmission coefficient.
+     */
+    public Material withKt(Double3 kt) {
+        return new Material(Kd, Ks, kt, Kr, nShininess);
     }
 
     /**
-     * Sets the transmission coefficient of the material.
+     * Returns a copy of the material with another transmission coefficient.
      *
      * @param kt The transmission coefficient as a double value.
-     * @return The Material object with the updated transmission coefficient.
+     * @return A copy of the material with the given transmission coefficient.
      */
-    public Material setKt(double kt) {
-        Kt = new Double3(kt);
-        return this;
+    public Material withKt(double kt) {
+        return withKt(new Double3(kt));
     }
 
     /**
-     * Sets the reflection coefficient of the material.
+     * Returns a copy of the material with another reflection coefficient.
      *
      * @param kr The reflection coefficient as a Double3 object.
-     * @return The Material object with the updated reflection coefficient.
+     * @return A copy of the material with the given reflection coefficient.
      */
-    public Material setKr(Double3 kr) {
-        Kr = kr;
-        return this;
+    public Material withKr(Double3 kr) {
+        return new Material(Kd, Ks, Kt, kr, nShininess);
     }
 
     /**
-     * Sets the reflection coefficient of the material.
+     * Returns a copy of the material with another reflection coefficient.
      *
      * @param kr The reflection coefficient as a double value.
-     * @return The Material object with the updated reflection coefficient.
+     * @return A copy of the material with the given reflection coefficient.
      */
-    public Material setKr(double kr) {
-        Kr = new Double3(kr);
-        return this;
+    public Material withKr(double kr) {
+        return withKr(new Double3(kr));
     }
 
     /**
-     * Sets the diffuse reflection coefficient of the material.
+     * Returns a copy of the material with another diffuse reflection coefficient.
      *
      * @param kd The diffuse reflection coefficient as a Double3 object.
-     * @return The Material object with the updated diffuse reflection coefficient.
+     * @return A copy of the material with the given diffuse reflection coefficient.
      */
-    public Material setKd(Double3 kd) {
-        Kd = kd;
-        return this;
+    public Material withKd(Double3 kd) {
+        return new Material(kd, Ks, Kt, Kr, nShininess);
     }
 
     /**
-     * Sets the diffuse reflection coefficient of the material.
+     * Returns a copy of the material with another diffuse reflection coefficient.
      *
      * @param kd The diffuse reflection coefficient as a double value.
-     * @return The Material object with the updated diffuse reflection coefficient.
+     * @return A copy of the material with the given diffuse reflection coefficient.
      */
-    public Material setKd(double kd) {
-        Kd = new Double3(kd);
-        return this;
+    public Material withKd(double kd) {
+        return withKd(new Double3(kd));
     }
 
     /**
-     * Sets the specular reflection coefficient of the material.
+     * Returns a copy of the material with another specular reflection coefficient.
      *
      * @param ks The specular reflection coefficient as a Double3 object.
-     * @return The Material object with the updated specular reflection coefficient.
+     * @return A copy of the material with the given specular reflection coefficient.
      */
-    public Material setKs(Double3 ks) {
-        Ks = ks;
-        return this;
+    public Material withKs(Double3 ks) {
+        return new Material(Kd, ks, Kt, Kr, nShininess);
     }
 
     /**
-     * Sets the specular reflection coefficient of the material.
+     * Returns a copy of the material with another specular reflection coefficient.
      *
      * @param ks The specular reflection coefficient as a double value.
-     * @return The Material object with the updated specular reflection coefficient.
+     * @return A copy of the material with the given specular reflection coefficient.
      */
-    public Material setKs(double ks) {
-        Ks = new Double3(ks);
-        return this;
+    public Material withKs(double ks) {
+        return withKs(new Double3(ks));
     }
 
     /**
-     * Sets the shininess factor of the material.
+     * Returns a copy of the material with another shininess factor.
      *
      * @param nShininess The shininess factor as an integer value.
-     * @return The Material object with the updated shininess factor.
+     * @return A copy of the material with the given shininess factor.
      */
-    public Material setShininess(int nShininess) {
-        this.nShininess = nShininess;
-        return this;
+    public Material withShininess(int nShininess) {
+        return new Material(Kd, Ks, Kt, Kr, nShininess);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        // unlike Double3#equals, the coefficients are compared exactly, so equal materials are interchangeable
+        return obj instanceof Material other && nShininess == other.nShininess
+                && same(Kd, other.Kd) && same(Ks, other.Ks) && same(Kt, other.Kt) && same(Kr, other.Kr);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = nShininess;
+        for (Double3 k : new Double3[]{Kd, Ks, Kt, Kr})
+            hash = 31 * (31 * (31 * hash + Double.hashCode(k.d1)) + Double.hashCode(k.d2)) + Double.hashCode(k.d3);
+        return hash;
+    }
+
+    /**
+     * Checks whether two coefficients are exactly equal
+     *
+     * @param k1 the first coefficient
+     * @param k2 the second coefficient
+     * @return true if all the components are equal
+     */
+    private static boolean same(Double3 k1, Double3 k2) {
+        return Double.compare(k1.d1, k2.d1) == 0 && Double.compare(k1.d2, k2.d2) == 0
+                && Double.compare(k1.d3, k2.d3) == 0;
     }
 }
@@ -0,0 +1,76 @@
+package primitives;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A registry of shared materials. Materials with exactly the same coefficients are interned
+ * into one instance (materials are immutable, so it may be shared), and every interned material
+ * has a small index in the registry, so data per material may be kept in arrays - e.g. the
+ * compiled geometries of a scene keep the index of the material of every geometry.<br/>
+ * A registry lives as long as its owner, it is not thread safe.<br/>
+ * Besides, the geometries share their materials by {@link #intern(Material)}: a material that
+ * is equal to a material of another geometry is replaced by the same instance.
+ */
+public class MaterialRegistry {
+
+    /**
+     * The shared instances of the materials of the geometries. The map holds the materials
+     * weakly, so a material that is not used anymore is removed.
+     */
+    private static final Map<Material, WeakReference<Material>> SHARED = new WeakHashMap<>();
+
+    /** The indices of the interned materials */
+    private final Map<Material, Integer> indices = new HashMap<>();
+    /** The interned materials by their indices */
+    private final List<Material> materials = new ArrayList<>();
+
+    /**
+     * Returns the shared instance of a material - the first equal material that was interned
+     * and is still used, or the material itself
+     *
+     * @param material the material
+     * @return the shared material that is equal to the material
+     */
+    public static synchronized Material intern(Material material) {
+        WeakReference<Material> reference = SHARED.get(material);
+        Material shared = reference == null ? null : reference.get();
+        if (shared != null)
+            return shared;
+        SHARED.put(material, new WeakReference<>(material));
+        return material;
+    }
+
+    /**
+     * Returns the index of the material that is equal to a material, the material is
+     * registered if there is none yet
+     *
+     * @param material the material
+     * @return the index of the shared material
+     */
+    public int indexOf(Material material) {
+        return indices.computeIfAbsent(material, key -> {
+            materials.add(material);
+            return materials.size() - 1;
+        });
+    }
+
+    /**
+     * Returns an interned material by its index
+     *
+     * @param index the index of the material, see {@link #indexOf(Material)}
+     * @return the material
+     */
+    public Material get(int index) {
+        return materials.get(index);
+    }
+
+    /** @return the amount of the interned materials */
+    public int size() {
+        return materials.size();
+    }
+}
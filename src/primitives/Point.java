@@ -17,9 +17,10 @@ public class Point {
     }
 
     /** Creates a Point object with the coordinates specified in the given Double3 object.
+     * Double3 is immutable, so the object is shared and not copied.
      * @param double3 the Double3 object containing the x, y, and z coordinates of the Point. */
     Point(Double3 double3) {
-        this(double3.d1, double3.d2, double3.d3);
+        this.xyz = double3;
     }
 
     /** Returns the x coordinate of the point */
@@ -85,14 +86,14 @@ public class Point {
      * @param vector the Vector to add to this Point.
      * @return a new Point representing the result of the addition. */
     public Point add(Vector vector) {
-        return new Point(xyz.add(vector.xyz));
+        return new Point(xyz.d1 + vector.xyz.d1, xyz.d2 + vector.xyz.d2, xyz.d3 + vector.xyz.d3);
     }
 
     /** Subtracts another Point from this Point and returns a new Vector.
      * @param other the Point to subtract from this Point.
      * @return a new Vector representing the result of the subtraction. */
     public Vector subtract(Point other) {
-        return new Vector(xyz.subtract(other.xyz));
+        return new Vector(xyz.d1 - other.xyz.d1, xyz.d2 - other.xyz.d2, xyz.d3 - other.xyz.d3);
     }
 
 }
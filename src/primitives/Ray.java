@@ -31,9 +31,9 @@ public class Ray {
     public Ray(Point p0, Vector dir, Vector n) {
         double nv = alignZero(dir.dotProduct(n));
 
-        Vector deltaVector = n.scale(nv > 0 ? DELTA : -DELTA);
-
-        this.p0 = p0.add(deltaVector);
+        // the head is moved by delta along the normal, without the intermediate delta vector
+        double delta = nv > 0 ? DELTA : -DELTA;
+        this.p0 = new Point(p0.xyz.d1 + n.xyz.d1 * delta, p0.xyz.d2 + n.xyz.d2 * delta, p0.xyz.d3 + n.xyz.d3 * delta);
         this.dir = dir.normalize();
     }
 
@@ -69,7 +69,8 @@ public class Ray {
     }
 
     public Point getPoint(double t){
-        return p0.add(dir.scale(t));
+        // calculated directly, without the intermediate scaled vector
+        return new Point(p0.xyz.d1 + dir.xyz.d1 * t, p0.xyz.d2 + dir.xyz.d2 * t, p0.xyz.d3 + dir.xyz.d3 * t);
     }
 
     /** Finds the closest point to this ray among a list of points.
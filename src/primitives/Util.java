@@ -1,5 +1,7 @@
 package primitives;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Util class is used for some internal utilities, e.g. controlling accuracy
  * 
@@ -58,14 +60,33 @@ public abstract class Util {
 	}
 
 	/**
-	 * Provide a real random number in range between min and max
+	 * Provide a real random number in range between min and max, by the random
+	 * generator of the current thread (so threads do not contend on a shared one)
 	 * 
 	 * @param min value (included)
 	 * @param max value (excluded)
 	 * @return the random value
 	 */
 	public static double random(double min, double max) {
-		return Math.random() * (max - min) + min;
+		return ThreadLocalRandom.current().nextDouble() * (max - min) + min;
+	}
+
+	/**
+	 * Raises a number to an integer power by squaring - a few multiplications instead
+	 * of the logarithm and exponent of {@link Math#pow(double, double)}
+	 * 
+	 * @param base     the number
+	 * @param exponent the power, negative powers fall back to {@link Math#pow(double, double)}
+	 * @return the number raised to the power
+	 */
+	public static double pow(double base, int exponent) {
+		if (exponent < 0)
+			return Math.pow(base, exponent);
+		double result = 1;
+		for (; exponent != 0; exponent >>= 1, base *= base)
+			if ((exponent & 1) != 0)
+				result *= base;
+		return result;
 	}
 
 }
@@ -14,14 +14,16 @@ public class Vector extends Point {
      * @throws IllegalArgumentException if the vector is the zero vector. */
     public Vector(double x, double y, double z) {
         super(x, y, z);
-        if (xyz.equals(Double3.ZERO))
+        if (isZero(x) && isZero(y) && isZero(z))
             throw new IllegalArgumentException("");
     }
 
     /** Constructs a new Vector with the specified Double3 object.
      * @param double3 the Double3 object representing the vector's components. */
     Vector(Double3 double3) {
-        this(double3.d1, double3.d2, double3.d3);
+        super(double3);
+        if (isZero(double3.d1) && isZero(double3.d2) && isZero(double3.d3))
+            throw new IllegalArgumentException("");
     }
 
     /** @return the squared length of this vector. */
@@ -50,14 +52,33 @@ public class Vector extends Point {
     }
 
 
-    /** @return a new Vector representing this vector scaled to unit length. */
+    /** @return a Vector representing this vector scaled to unit length
+     * (the vector itself if it is already of exactly unit length, since it is immutable). */
     public Vector normalize() {
         double len = length();
+        if (len == 1) return this;
         // for better performance we are not using the following
         // return new Vector(xyz.reduce(len));
         return new Vector(xyz.d1 / len, xyz.d2 / len, xyz.d3 / len);
     }
 
+    /** Calculates the unit vector of the direction from one point to another, normalized directly,
+     * without the intermediate vector of their difference.
+     * @param from the start point.
+     * @param to the end point.
+     * @return the unit vector from the start point to the end point.
+     * @throws IllegalArgumentException if the points are the same. */
+    public static Vector direction(Point from, Point to) {
+        double x = to.xyz.d1 - from.xyz.d1;
+        double y = to.xyz.d2 - from.xyz.d2;
+        double z = to.xyz.d3 - from.xyz.d3;
+        // the same points have no direction, as their difference is the zero vector
+        if (isZero(x) && isZero(y) && isZero(z))
+            throw new IllegalArgumentException("The points are the same, there is no direction between them");
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new Vector(x / length, y / length, z / length);
+    }
+
     /** @param other the vector to calculate the dot product with.
      * @return the dot product of this vector and the specified vector. */
     public double dotProduct(Vector other) {
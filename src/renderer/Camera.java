@@ -3,9 +3,18 @@ package renderer;
 import primitives.*;
 import static primitives.Util.*;
 import java.util.MissingResourceException;
-import java.util.Hashtable;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 
 /** A camera object used to construct rays for rendering an image. */
 public class Camera {
@@ -39,6 +48,12 @@ public class Camera {
      */
     private int antiAliasingFactor = 1;
 
+    /**
+     * The pattern of the positions of the anti-aliasing samples in a pixel.
+     * Default value is a regular grid.
+     */
+    private SamplePattern samplePattern = SamplePattern.GRID;
+
     /**
      * The maximum adaptive level for ray tracing. Controls the level of refinement
      * for adaptive anti-aliasing.
@@ -52,9 +67,64 @@ public class Camera {
      */
     private boolean useAdaptive = false;
 
+    //cache of the adaptive super-sampling samples of every rendering thread, a new one for every render.
+    private ThreadLocal<SampleCache> sampleCache = null;
+
+    //the sample caches of the running render, that are released when the render ends.
+    private final Queue<SampleCache> sampleCaches = new ConcurrentLinkedQueue<>();
+
     //number of threads to be used for multi-threading.
     private int multiThreading = 0;
 
+    //size (in pixels) of the square tiles handed to the threads, 0 for pixel by pixel allocation.
+    private int tileSize = 0;
+
+    //whether to render by a work-stealing fork-join pool.
+    private boolean forkJoin = false;
+
+    //maximum amount of pixels in a region that is not split any more by the fork-join render.
+    private static final int FORK_JOIN_REGION = 256;
+
+    //external executor that runs the render tasks, null for threads of the camera itself.
+    private Executor executor = null;
+
+    //size (in pixels) of the tiles submitted to an executor, if the tile size is not set.
+    private static final int EXECUTOR_TILE_SIZE = 32;
+
+    //whether to render progressively - one sample per pixel per pass, into an accumulation buffer.
+    private boolean progressive = false;
+
+    //time budget (in seconds) of a progressive render, 0 for no limit.
+    private double timeBudget = 0;
+
+    //standard error of a pixel color below which a progressive render stops sampling it, 0 for no convergence.
+    private double tolerance = 0;
+
+    //listener that is called after the image of every pass of a progressive render is published.
+    private IntConsumer passListener = null;
+
+    //accumulation buffer of the running progressive render, null for a regular render.
+    private ProgressiveBuffer progressiveBuffer = null;
+
+    //index of the samples of the current progressive pass (beyond the anti-aliasing grid, the sample pattern continues).
+    private int sampleIndex;
+
+    //side (in pixels) of the square blocks of pixels whose primary rays are traced as packets, 0 for ray by ray.
+    private int packetSize = 0;
+
+    //rays and colors of the packets of every rendering thread, a new one for every render.
+    private ThreadLocal<PacketBlock> packetBlock = null;
+
+    /**
+     * The arrays of the rays of a packet and of their colors, that a rendering thread reuses
+     * for all its packets
+     *
+     * @param rays   the rays of the packet
+     * @param colors the colors of the rays
+     */
+    private record PacketBlock(Ray[] rays, Color[] colors) {
+    }
+
 
     /** Constructs a new camera object.
      * @param p    The camera position.
@@ -117,6 +187,17 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets the interval of the progress percentage printing.
+     *
+     * @param printInterval print time interval in seconds, 0 if printing is not required
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setPrintInterval(double printInterval) {
+        this.printInterval = printInterval;
+        return this;
+    }
+
     /**
      * Sets the number of threads to be used for multi-threading.
      *
@@ -128,6 +209,114 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets the number of threads to be used for multi-threading, where the threads
+     * take square tiles of pixels instead of single pixels. Tiles need no locking and
+     * keep the rays of each thread coherent.
+     *
+     * @param multiThreading the number of threads to set
+     * @param tileSize       the size (in pixels) of the tiles, 0 for pixel by pixel allocation
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setMultiThreading(int multiThreading, int tileSize) {
+        if (tileSize < 0)
+            throw new IllegalArgumentException("Tile size cannot be negative");
+        this.multiThreading = multiThreading;
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets an executor that runs the render tasks instead of threads that the camera
+     * creates for itself, so that many cameras can share one bounded pool of threads
+     * (or, on Java 21 and above, an executor of virtual threads).
+     * The image is submitted as tasks that take tiles of pixels, the amount of the tasks
+     * is the multi-threading amount if it is set, and the amount of the available
+     * processors otherwise. The rendering thread takes tiles as well while it waits,
+     * so a render never waits for a busy executor.
+     *
+     * @param executor the executor, null to render by threads of the camera
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets whether to render by a work-stealing fork-join pool. The image is split
+     * recursively into regions, and idle threads steal regions from the busy ones,
+     * so pixels with deep reflection and refraction do not hold back the render.
+     * The pool uses the multi-threading amount of threads if it is set, and the
+     * amount of the available processors otherwise.
+     *
+     * @param forkJoin true to render by a fork-join pool
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setForkJoin(boolean forkJoin) {
+        this.forkJoin = forkJoin;
+        return this;
+    }
+
+    /**
+     * Sets progressive rendering. Instead of tracing all the anti-aliasing rays of a
+     * pixel at once, every pass traces one ray per pixel (through one of the cells of
+     * the anti-aliasing grid, in an order that spreads them over the pixel) and adds
+     * it to an accumulation buffer. After every pass the mean colors are written to the
+     * image writer and the pass listener is called, so a preview is available after the
+     * first pass. Once all the cells of the grid are sampled, the passes go on with
+     * more samples of the sample pattern (random positions in the cells, round after
+     * round, for the grid patterns), until the next pass would exceed the time budget
+     * or all the pixels have converged. Pixels that have converged are not sampled any
+     * more. Without a time budget and a tolerance the render stops after the cells of
+     * the grid - the same samples as a regular render.
+     *
+     * @param timeBudget the time budget in seconds, 0 for no limit
+     * @param tolerance  the standard error of the mean of a color component (on the
+     *                   0-255 scale) below which a pixel has converged, 0 for no
+     *                   convergence
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setProgressive(double timeBudget, double tolerance) {
+        if (timeBudget < 0 || tolerance < 0)
+            throw new IllegalArgumentException("Time budget and tolerance cannot be negative");
+        this.progressive = true;
+        this.timeBudget = timeBudget;
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets the listener of the passes of a progressive render, that is called with the
+     * amount of passes done, after the image of the last pass is in the image writer
+     * (e.g. to write the preview by {@link #writeToImage()}).
+     *
+     * @param passListener the listener, null for none
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setPassListener(IntConsumer passListener) {
+        this.passListener = passListener;
+        return this;
+    }
+
+    /**
+     * Sets tracing of the primary rays in packets. The image is rendered in square blocks
+     * of pixels, and the rays of a block (that are coherent - they start at the camera and
+     * point to neighbouring pixels) are traced together through the geometries, so every
+     * node of the hierarchy is fetched once for the whole block. The packets are used for
+     * renders of one ray per pixel - without anti-aliasing, adaptive sampling or a
+     * progressive render; the image is the same as when the rays are traced one by one.
+     *
+     * @param packetSize the side (in pixels) of the blocks, e.g. 4 or 8, 0 to trace ray by ray
+     * @return the Camera object itself, allowing for method chaining
+     */
+    public Camera setRayPackets(int packetSize) {
+        if (packetSize < 0)
+            throw new IllegalArgumentException("Packet size cannot be negative");
+        this.packetSize = packetSize;
+        return this;
+    }
+
     /** Sets the size of the view plane.
      * @param width  The width of the view plane.
      * @param height The height of the view plane.
@@ -172,6 +361,19 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets the pattern of the positions of the anti-aliasing samples in a pixel.
+     * A jittered pattern or a low-discrepancy sequence gives a better quality with
+     * the same amount of samples, so a lower anti-aliasing factor may be used.
+     *
+     * @param samplePattern the sample pattern
+     * @return The camera object
+     */
+    public Camera setSamplePattern(SamplePattern samplePattern) {
+        this.samplePattern = samplePattern;
+        return this;
+    }
+
     /**
      * setter for UseAdaptive
      * @param useAdaptive- the number of pixels in row/col of every pixel
@@ -242,11 +444,22 @@ public class Camera {
 
         double yI = -(i - (nY - 1d) / 2) * rY;
         double jX = (j - (nX - 1d) / 2) * rX;
-        Point pIJ = position.add(vTo.scale(distance));
+        // the coordinates are calculated directly, without the intermediate points and vectors
+        double x = position.getX() + vTo.getX() * distance;
+        double y = position.getY() + vTo.getY() * distance;
+        double z = position.getZ() + vTo.getZ() * distance;
 
-        if (yI != 0) pIJ = pIJ.add(vUp.scale(yI));
-        if (jX != 0) pIJ = pIJ.add(vRight.scale(jX));
-        return pIJ;
+        if (yI != 0) {
+            x += vUp.getX() * yI;
+            y += vUp.getY() * yI;
+            z += vUp.getZ() * yI;
+        }
+        if (jX != 0) {
+            x += vRight.getX() * jX;
+            y += vRight.getY() * jX;
+            z += vRight.getZ() * jX;
+        }
+        return new Point(x, y, z);
     }
 
     /**
@@ -274,25 +487,64 @@ public class Camera {
      * @author rafael najman
      */
     public List<Ray> constructRays(int nX, int nY, int j, int i) {
-        List<Ray> rays = new LinkedList<>();
+        int amount = antiAliasingFactor * antiAliasingFactor;
+        List<Ray> rays = new ArrayList<>(amount);
         Point centralPixel = findPixelLocation(nX, nY, j, i);
         double rY = height / nY / antiAliasingFactor;
         double rX = width / nX / antiAliasingFactor;
-        double x, y;
-
-        for (int rowNumber = 0; rowNumber < antiAliasingFactor; rowNumber++) {
-            for (int colNumber = 0; colNumber < antiAliasingFactor; colNumber++) {
-                y = -(rowNumber - (antiAliasingFactor - 1d) / 2) * rY;
-                x = (colNumber - (antiAliasingFactor - 1d) / 2) * rX;
-                Point pIJ = centralPixel;
-                if (y != 0) pIJ = pIJ.add(vUp.scale(y));
-                if (x != 0) pIJ = pIJ.add(vRight.scale(x));
-                rays.add(new Ray(position, pIJ.subtract(position)));
-            }
-        }
+
+        for (int index = 0; index < amount; ++index)
+            rays.add(constructSampleRay(centralPixel, rX, rY, index, SamplePattern.seed(j, i)));
         return rays;
     }
 
+    /**
+     * Constructs the ray through an anti-aliasing sample of a pixel, positioned by the
+     * sample pattern.
+     *
+     * @param centralPixel the center of the pixel
+     * @param rX           the width of a cell of the anti-aliasing grid
+     * @param rY           the height of a cell of the anti-aliasing grid
+     * @param index        the index of the sample, row by row
+     * @param seed         the seed of the randomization of the samples of the pixel
+     * @return the ray
+     */
+    private Ray constructSampleRay(Point centralPixel, double rX, double rY, int index, int seed) {
+        double y = -samplePattern.offset(index, antiAliasingFactor, 1, seed) * rY;
+        double x = samplePattern.offset(index, antiAliasingFactor, 0, seed) * rX;
+        Point pIJ = centralPixel;
+        if (y != 0) pIJ = pIJ.add(vUp.scale(y));
+        if (x != 0) pIJ = pIJ.add(vRight.scale(x));
+        return new Ray(position, pIJ.subtract(position));
+    }
+
+    /**
+     * Traces the anti-aliasing samples of a pixel one by one, as the sample pattern
+     * generates them, and averages their colors - without building a list of rays.
+     *
+     * @param nX the x resolution
+     * @param nY the y resolution
+     * @param j  the x coordinate
+     * @param i  the y coordinate
+     * @return the average color of the samples
+     */
+    private Color traceSamples(int nX, int nY, int j, int i) {
+        int amount = antiAliasingFactor * antiAliasingFactor;
+        Point centralPixel = findPixelLocation(nX, nY, j, i);
+        double rY = height / nY / antiAliasingFactor;
+        double rX = width / nX / antiAliasingFactor;
+
+        int seed = SamplePattern.seed(j, i);
+        double r = 0, g = 0, b = 0;
+        for (int index = 0; index < amount; ++index) {
+            Color color = rayTracer.traceRay(constructSampleRay(centralPixel, rX, rY, index, seed));
+            r += color.getRed();
+            g += color.getGreen();
+            b += color.getBlue();
+        }
+        return new Color(r / amount, g / amount, b / amount);
+    }
+
 
     /**
      * Renders the image using the configured camera settings, image writer, and ray tracer.
@@ -300,6 +552,8 @@ public class Camera {
      *
      * @return the Camera object itself, allowing for method chaining
      * @throws MissingResourceException if the camera is not initialized with required parameters
+     * @throws IllegalStateException    if a render by tiles is interrupted; an exception of a thread
+     *                                  or a task that renders tiles is thrown here as well
      * @author rafael najman
      */
     public Camera renderImage() {
@@ -307,9 +561,47 @@ public class Camera {
             throw new MissingResourceException("", "", "Camera is not initialized");
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
+        // the samples of former renders are not used, the scene may have changed
+        sampleCache = ThreadLocal.withInitial(() -> {
+            SampleCache cache = new SampleCache();
+            sampleCaches.add(cache);
+            return cache;
+        });
 
-        pixelManager = new PixelManager(nY,nX,printInterval);
+        int packetRays = packetSize * packetSize;
+        packetBlock = ThreadLocal.withInitial(() -> new PacketBlock(new Ray[packetRays], new Color[packetRays]));
 
+        try {
+            if (progressive)
+                return renderProgressive(nX, nY);
+            return renderPass(nX, nY, printInterval);
+        } finally {
+            // the threads of a shared executor outlive the render, they must not keep the grown tables
+            sampleCache = null;
+            packetBlock = null;
+            for (SampleCache cache; (cache = sampleCaches.poll()) != null; )
+                cache.release();
+        }
+    }
+
+    /**
+     * Renders all the pixels of the image once, by the configured threading mode.
+     *
+     * @param nX       the x resolution
+     * @param nY       the y resolution
+     * @param interval print time interval in seconds, 0 if printing is not required
+     * @return the Camera object itself, allowing for method chaining
+     */
+    private Camera renderPass(int nX, int nY, double interval) {
+        if (executor != null)
+            return renderExecutor(nX, nY, interval);
+        if (forkJoin)
+            return renderForkJoin(nX, nY, interval);
+        // the packets are traced by blocks, so the pixels are allocated by tiles as well
+        if (tileSize > 0 || usePackets())
+            return renderTiles(nX, nY, interval);
+
+        pixelManager = new PixelManager(nY,nX,interval);
         if (multiThreading == 0)
             for (int i = 0; i < nX; i++)
                 for (int j = 0; j < nY; j++) {
@@ -317,26 +609,321 @@ public class Camera {
                     //get the ray through the pixel
                     //imageWriter.writePixel(j, i, this.castRay(nX, nY, j, i));
                     castRay(nX, nY, j, i);
+                    pixelManager.pixelDone();
                 }
         else {
             var threads = new LinkedList<Thread>(); // list of threads
-            while (multiThreading-- > 0) // add appropriate number of threads
+            int threadsCount = multiThreading; // the configuration is kept for the next renders
+            while (threadsCount-- > 0) // add appropriate number of threads
                 threads.add(new Thread(() -> { // add a thread with its code
                     PixelManager.Pixel pixel; // current pixel(row,col)
                     // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null)
+                    while ((pixel = pixelManager.nextPixel()) != null) {
                         // cast ray through pixel (and color it – inside castRay)
                         castRay(nX, nY, pixel.col(), pixel.row());
+                        pixelManager.pixelDone();
+                    }
                 }));
             // start all the threads
             for (var thread : threads) thread.start();
-            // wait until all the threads have finished
-            try { for (var thread : threads) thread.join(); } catch (InterruptedException ignore) {}
+            // wait until all the threads have finished, they use the per-render tables till then
+            joinUninterruptibly(threads, null);
         }
 
         return this;
     }
 
+    /**
+     * Renders the image by tasks that are submitted to the executor. The render ends only when
+     * none of its tasks runs anymore - the tasks that have not started yet are cancelled, and
+     * the running ones are waited for, even if the render fails.
+     *
+     * @param nX       the x resolution
+     * @param nY       the y resolution
+     * @param interval print time interval in seconds, 0 if printing is not required
+     * @return the Camera object itself, allowing for method chaining
+     */
+    private Camera renderExecutor(int nX, int nY, double interval) {
+        int tasks = multiThreading > 0 ? multiThreading : Runtime.getRuntime().availableProcessors();
+        // the last counter of the tile manager belongs to the rendering thread
+        TileManager tileManager = new TileManager(nY, nX, tileSize > 0 ? tileSize : EXECUTOR_TILE_SIZE,
+                tasks + 1, interval);
+        // every task is either started by the executor or cancelled by the render, whichever comes first
+        AtomicBoolean[] claimed = new AtomicBoolean[tasks];
+        CountDownLatch finished = new CountDownLatch(tasks);
+
+        try {
+            for (int i = 0; i < tasks; ++i) {
+                int index = i;
+                AtomicBoolean claim = claimed[i] = new AtomicBoolean();
+                executor.execute(() -> {
+                    if (!claim.compareAndSet(false, true)) return;
+                    try {
+                        renderTiles(nX, nY, tileManager, index);
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            renderTiles(nX, nY, tileManager, tasks);
+            // wait for the tiles that the tasks are still rendering, a failure of a task is thrown here
+            tileManager.awaitTiles();
+        } catch (RuntimeException | Error exception) {
+            // the running tasks stop taking tiles
+            tileManager.fail(exception);
+            throw exception;
+        } finally {
+            for (AtomicBoolean claim : claimed)
+                if (claim != null && claim.compareAndSet(false, true))
+                    finished.countDown();
+            awaitUninterruptibly(finished);
+        }
+
+        return this;
+    }
+
+    /**
+     * Waits until threads have finished, an interrupt does not stop the waiting but it is
+     * kept for the caller
+     *
+     * @param threads     the threads
+     * @param tileManager the tile manager of the threads, it stops handing out tiles on an
+     *                    interrupt - null if the threads do not render by tiles
+     */
+    private static void joinUninterruptibly(List<Thread> threads, TileManager tileManager) {
+        boolean interrupted = false;
+        for (Thread thread : threads)
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    if (!interrupted && tileManager != null)
+                        tileManager.fail(new IllegalStateException("The render was interrupted", e));
+                    interrupted = true;
+                }
+            }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Waits for a latch, an interrupt does not stop the waiting but it is kept for the caller
+     *
+     * @param latch the latch
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Renders tiles from the tile manager until there are no more tiles. A failure is
+     * reported to the tile manager, that passes it to the thread waiting for the tiles.
+     *
+     * @param nX          the x resolution
+     * @param nY          the y resolution
+     * @param tileManager the tile manager
+     * @param index       the index of the thread in the tile manager
+     */
+    private void renderTiles(int nX, int nY, TileManager tileManager, int index) {
+        try {
+            TileManager.Tile tile;
+            // allocate tiles in loop until there are no more tiles
+            while ((tile = tileManager.nextTile()) != null) {
+                castBlock(nX, nY, tile.col(), tile.row(), tile.width(), tile.height());
+                tileManager.tileDone(index, tile);
+            }
+        } catch (Throwable exception) {
+            tileManager.fail(exception);
+        }
+    }
+
+    /**
+     * Renders the image by a fork-join pool.
+     *
+     * @param nX       the x resolution
+     * @param nY       the y resolution
+     * @param interval print time interval in seconds, 0 if printing is not required
+     * @return the Camera object itself, allowing for method chaining
+     */
+    private Camera renderForkJoin(int nX, int nY, double interval) {
+        int parallelism = multiThreading > 0 ? multiThreading : Runtime.getRuntime().availableProcessors();
+        pixelManager = new PixelManager(nY, nX, interval);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RenderRegion(nX, nY, 0, 0, nX, nY));
+        } finally {
+            // after a failure the waiting regions are cancelled, the running ones are waited for
+            pool.shutdownNow();
+            boolean interrupted = false;
+            while (!pool.isTerminated()) {
+                try {
+                    pool.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        return this;
+    }
+
+    /**
+     * Fork-join task that renders a rectangular region of the image. A large region
+     * is split in two along its longer side, a small one is rendered directly.
+     * The tasks only live in the pool of one render, they are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class RenderRegion extends RecursiveAction {
+        private final int nX, nY, col, row, width, height;
+
+        /**
+         * Constructs a task for a region of the image.
+         *
+         * @param nX     the x resolution
+         * @param nY     the y resolution
+         * @param col    the first column of the region
+         * @param row    the first row of the region
+         * @param width  the amount of columns in the region
+         * @param height the amount of rows in the region
+         */
+        RenderRegion(int nX, int nY, int col, int row, int width, int height) {
+            this.nX = nX;
+            this.nY = nY;
+            this.col = col;
+            this.row = row;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            if (width * height <= FORK_JOIN_REGION) {
+                castBlock(nX, nY, col, row, width, height);
+                pixelManager.pixelsDone(width * height);
+            } else if (width >= height) {
+                int half = width / 2;
+                invokeAll(new RenderRegion(nX, nY, col, row, half, height),
+                        new RenderRegion(nX, nY, col + half, row, width - half, height));
+            } else {
+                int half = height / 2;
+                invokeAll(new RenderRegion(nX, nY, col, row, width, half),
+                        new RenderRegion(nX, nY, col, row + half, width, height - half));
+            }
+        }
+    }
+
+    /**
+     * Renders the image by threads that take tiles of pixels from a tile manager.
+     *
+     * @param nX       the x resolution
+     * @param nY       the y resolution
+     * @param interval print time interval in seconds, 0 if printing is not required
+     * @return the Camera object itself, allowing for method chaining
+     */
+    private Camera renderTiles(int nX, int nY, double interval) {
+        int threadsCount = Math.max(1, multiThreading);
+        TileManager tileManager = new TileManager(nY, nX, tileSize > 0 ? tileSize : packetSize, threadsCount,
+                interval);
+
+        var threads = new LinkedList<Thread>(); // list of threads
+        for (int i = 0; i < threadsCount; ++i) {
+            int index = i;
+            threads.add(new Thread(() -> renderTiles(nX, nY, tileManager, index)));
+        }
+        // start all the threads
+        for (var thread : threads) thread.start();
+        // wait until all the threads have finished, then throw the failure of a thread (or the interrupt)
+        joinUninterruptibly(threads, tileManager);
+        tileManager.awaitTiles();
+
+        return this;
+    }
+
+
+    /**
+     * Renders the image progressively - pass after pass of one sample per pixel, until
+     * the time budget is spent or the image has converged (or, without both, until the
+     * anti-aliasing grid is exhausted).
+     *
+     * @param nX the x resolution
+     * @param nY the y resolution
+     * @return the Camera object itself, allowing for method chaining
+     */
+    private Camera renderProgressive(int nX, int nY) {
+        int amount = antiAliasingFactor * antiAliasingFactor;
+        int[] cells = passCells(amount);
+        boolean unlimited = timeBudget == 0 && tolerance == 0;
+        long start = System.nanoTime();
+        long budget = (long) (timeBudget * 1e9);
+        progressiveBuffer = new ProgressiveBuffer(nX, nY, tolerance);
+        try {
+            for (int pass = 0; !unlimited || pass < amount; ++pass) {
+                long passStart = System.nanoTime();
+                // every round of the passes samples every cell once, in the same order
+                sampleIndex = pass / amount * amount + cells[pass % amount];
+                renderPass(nX, nY, 0);
+                int left = progressiveBuffer.publish(imageWriter);
+                if (printInterval != 0)
+                    System.out.printf("\r Pass %d: %d pixels left", pass + 1, left);
+                if (passListener != null)
+                    passListener.accept(pass + 1);
+
+                long now = System.nanoTime();
+                // stop if the next pass (as long as the last one) would exceed the time budget
+                if (left == 0 || budget > 0 && now - start + (now - passStart) > budget)
+                    break;
+            }
+        } finally {
+            progressiveBuffer = null;
+        }
+        return this;
+    }
+
+    /**
+     * Orders the cells of the anti-aliasing grid for the passes of a progressive render,
+     * by the bit reversal of their index, so that every prefix of the passes covers the
+     * pixel evenly.
+     *
+     * @param amount the amount of the cells
+     * @return the cells, in the order of the passes
+     */
+    private static int[] passCells(int amount) {
+        int bits = 32 - Integer.numberOfLeadingZeros(amount - 1);
+        int[] cells = new int[amount];
+        for (int i = 0, index = 0; index < amount; ++i) {
+            int cell = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            if (cell < amount) cells[index++] = cell;
+        }
+        return cells;
+    }
+
+    /**
+     * Constructs the ray through a sample of the anti-aliasing grid of a pixel, as
+     * {@link #constructRays(int, int, int, int)} does.
+     *
+     * @param nX   the x resolution
+     * @param nY   the y resolution
+     * @param j    the x coordinate
+     * @param i    the y coordinate
+     * @param cell the index of the sample, row by row (beyond the grid, as the sample pattern continues)
+     * @return the ray
+     */
+    private Ray constructRay(int nX, int nY, int j, int i, int cell) {
+        return constructSampleRay(findPixelLocation(nX, nY, j, i),
+                width / nX / antiAliasingFactor, height / nY / antiAliasingFactor, cell, SamplePattern.seed(j, i));
+    }
 
     /**
      * function that casts ray and returns color
@@ -349,105 +936,149 @@ public class Camera {
      * @author rafael najman
      */
     private void castRay(int nX, int nY, int col, int row) {
-        if (useAdaptive)
-            imageWriter.writePixel(col,row,adaptiveHelper(findPixelLocation(nX, nY, col, row), nX, nY));
+        if (progressiveBuffer != null) {
+            if (!progressiveBuffer.isConverged(col, row))
+                progressiveBuffer.add(col, row, rayTracer.traceRay(constructRay(nX, nY, col, row, sampleIndex)));
+        } else if (useAdaptive)
+            imageWriter.writePixel(col,row,adaptiveHelper(nX, nY, col, row));
         else if (antiAliasingFactor == 1)
             imageWriter.writePixel(col, row, rayTracer.traceRay(constructRay(nX, nY, col, row)));
         else
-            imageWriter.writePixel(col, row, rayTracer.traceRays(constructRays(nX, nY, col, row)));
+            imageWriter.writePixel(col, row, traceSamples(nX, nY, col, row));
+    }
 
-        pixelManager.pixelDone();
+    /** @return true if the primary rays are traced in packets in the current render */
+    private boolean usePackets() {
+        return packetSize > 0 && antiAliasingFactor == 1 && !useAdaptive && progressiveBuffer == null;
     }
 
     /**
-     * get the point and return the color of the ray to this point
+     * Casts the rays of a rectangular block of pixels and colors them - in packets of
+     * packet size x packet size pixels if the packets are used, and ray by ray otherwise
      *
-     * @param p- point on the view plane
-     * @return color of this point
-     * @author rafael najman
+     * @param nX     the x resolution
+     * @param nY     the y resolution
+     * @param col    the first column of the block
+     * @param row    the first row of the block
+     * @param width  the amount of columns in the block
+     * @param height the amount of rows in the block
      */
-    private Color calcPointColor(Point p) {
-        return rayTracer.traceRay(new Ray(position, p.subtract(position)));
+    private void castBlock(int nX, int nY, int col, int row, int width, int height) {
+        if (!usePackets()) {
+            for (int j = row; j < row + height; ++j)
+                for (int i = col; i < col + width; ++i)
+                    castRay(nX, nY, i, j);
+            return;
+        }
+
+        PacketBlock block = packetBlock.get();
+        Ray[] rays = block.rays();
+        Color[] colors = block.colors();
+        for (int blockRow = row; blockRow < row + height; blockRow += packetSize)
+            for (int blockCol = col; blockCol < col + width; blockCol += packetSize) {
+                int rows = Math.min(packetSize, row + height - blockRow);
+                int cols = Math.min(packetSize, col + width - blockCol);
+                int count = 0;
+                for (int j = blockRow; j < blockRow + rows; ++j)
+                    for (int i = blockCol; i < blockCol + cols; ++i)
+                        rays[count++] = constructRay(nX, nY, i, j);
+                rayTracer.tracePacket(rays, colors, count);
+                count = 0;
+                for (int j = blockRow; j < blockRow + rows; ++j)
+                    for (int i = blockCol; i < blockCol + cols; ++i)
+                        imageWriter.writePixel(i, j, colors[count++]);
+            }
     }
 
     /**
-     * calculate average color of the pixel by using adaptive Super-sampling
+     * calculate average color of the pixel by using adaptive Super-sampling.
+     * The samples lie on an integer grid of sub-pixel coordinates, and are kept in the
+     * sample cache of the thread, so every sample is traced only once - even a corner
+     * that is shared with a neighbouring pixel that the thread has rendered.
      *
-     * @param center- the center of the pixel
-     * @param nY-     number of pixels to width
-     * @param nX-     number of pixels to length
-     * @return- the average color of the pixel
-     * @author rafael najman
+     * @param nX  the x resolution
+     * @param nY  the y resolution
+     * @param col the column of the pixel
+     * @param row the row of the pixel
+     * @return the average color of the pixel
      */
-    private Color adaptiveHelper(Point center, double nY, double nX) {
-        Hashtable<Point, Color> pointColorTable = new Hashtable<Point, Color>();
-        double rY = height / nY / 2;
-        double rX = width / nX / 2;
-        Color upRight = calcPointColor(center.add(vUp.scale(rY)).add(vRight.scale(rX)));
-        Color upLeft = calcPointColor(center.add(vUp.scale(rY)).add(vRight.scale(-rX)));
-        Color downRight = calcPointColor(center.add(vUp.scale(-rY)).add(vRight.scale(rX)));
-        Color downLeft = calcPointColor(center.add(vUp.scale(-rY)).add(vRight.scale(-rX)));
-
-        return adaptive(1, center, rX, rY, pointColorTable, upLeft, upRight, downLeft, downRight);
+    private Color adaptiveHelper(int nX, int nY, int col, int row) {
+        SampleCache cache = sampleCache.get();
+        cache.startPixel();
+        int size = 1 << (maxAdaptiveLevel - 1);
+        adaptive(cache, nX, nY, 1, col * size, row * size, size, 1);
+        return new Color(cache.sum[0], cache.sum[1], cache.sum[2]);
     }
 
     /**
-     * recursive method that return the average color of the pixel- by checking the color of the four corners
+     * recursive method that adds the average color of a square of the pixel to the color
+     * of the pixel - by checking the color of the four corners. If they differ, the square
+     * is divided into four squares, until the maximal adaptive level.
      *
-     * @param max-         the depth of the recursion
-     * @param center-      the center of the pixel
-     * @param rX-          the width of the pixel
-     * @param rY-          the height of the pixel
-     * @param upLeftCol-   the color of the vUp left corner
-     * @param upRightCol-  the color of the vUp vRight corner
-     * @param downLeftCol- the color of the down left corner
-     * @param downRightCol - the color of the down vRight corner
-     * @return the average color of the pixel
-     * @author rafael najman
+     * @param cache  the sample cache of the thread, that accumulates the color of the pixel
+     * @param nX     the x resolution
+     * @param nY     the y resolution
+     * @param level  the depth of the recursion
+     * @param x      the column of the upper left corner on the sub-pixel grid
+     * @param y      the row of the upper left corner on the sub-pixel grid
+     * @param size   the side of the square on the sub-pixel grid
+     * @param weight the part of the square in the pixel
      */
-    private Color adaptive(int max, Point center, double rX, double rY, Hashtable<Point, Color> pointColorTable,
-                           Color upLeftCol, Color upRightCol, Color downLeftCol, Color downRightCol) {
-        if (max == maxAdaptiveLevel) {
-            return downRightCol.add(upLeftCol).add(upRightCol).add(downLeftCol).reduce(4);
+    private void adaptive(SampleCache cache, int nX, int nY, int level, int x, int y, int size, double weight) {
+        int slot = sample(cache, nX, nY, x, y);
+        double r = cache.get(slot, 0), g = cache.get(slot, 1), b = cache.get(slot, 2);
+        double sumR = r, sumG = g, sumB = b;
+        boolean uniform = true;
+        for (int corner = 1; corner < 4; ++corner) {
+            slot = sample(cache, nX, nY, x + (corner & 1) * size, y + (corner >> 1) * size);
+            double cornerR = cache.get(slot, 0), cornerG = cache.get(slot, 1), cornerB = cache.get(slot, 2);
+            uniform &= cornerR == r && cornerG == g && cornerB == b;
+            sumR += cornerR;
+            sumG += cornerG;
+            sumB += cornerB;
         }
-        if (upRightCol.equals(upLeftCol) && downRightCol.equals(downLeftCol) && downLeftCol.equals(upLeftCol))
-            return upRightCol;
-        else {
-            Color rightPCol = getPointColorFromTable(center.add(vRight.scale(rX)), pointColorTable);
-            Color leftPCol = getPointColorFromTable(center.add(vRight.scale(-rX)), pointColorTable);
-            Color upPCol = getPointColorFromTable(center.add(vUp.scale(rY)), pointColorTable);
-            Color downPCol = getPointColorFromTable(center.add(vUp.scale(-rY)), pointColorTable);
-            Color centerCol = calcPointColor(center);
-
-            rX = rX / 2;
-            rY = rY / 2;
-            upLeftCol = adaptive(max + 1, center.add(vUp.scale(rY / 2)).add(vRight.scale(-rX / 2)), rX, rY, pointColorTable,
-                    upLeftCol, upPCol, leftPCol, centerCol);
-            upRightCol = adaptive(max + 1, center.add(vUp.scale(rY / 2)).add(vRight.scale(rX / 2)), rX, rY, pointColorTable,
-                    upPCol, upRightCol, centerCol, leftPCol);
-            downLeftCol = adaptive(max + 1, center.add(vUp.scale(-rY / 2)).add(vRight.scale(-rX / 2)), rX, rY, pointColorTable,
-                    leftPCol, centerCol, downLeftCol, downPCol);
-            downRightCol = adaptive(max + 1, center.add(vUp.scale(-rY / 2)).add(vRight.scale(rX / 2)), rX, rY, pointColorTable,
-                    centerCol, rightPCol, downPCol, downRightCol);
-            return downRightCol.add(upLeftCol).add(upRightCol).add(downLeftCol).reduce(4);
+
+        if (uniform) {
+            cache.sum[0] += weight * r;
+            cache.sum[1] += weight * g;
+            cache.sum[2] += weight * b;
+        } else if (level == maxAdaptiveLevel) {
+            cache.sum[0] += weight * sumR / 4;
+            cache.sum[1] += weight * sumG / 4;
+            cache.sum[2] += weight * sumB / 4;
+        } else {
+            int half = size / 2;
+            weight /= 4;
+            adaptive(cache, nX, nY, level + 1, x, y, half, weight);
+            adaptive(cache, nX, nY, level + 1, x + half, y, half, weight);
+            adaptive(cache, nX, nY, level + 1, x, y + half, half, weight);
+            adaptive(cache, nX, nY, level + 1, x + half, y + half, half, weight);
         }
     }
 
     /**
-     * check if this point exist in the HashTable return his color otherwise calculate the color and save it
+     * Returns the cached sample of a point of the sub-pixel grid, tracing its ray if
+     * it is not cached yet
      *
-     * @param point-           certain point in the pixel
-     * @param pointColorTable- dictionary that save points and their color
-     * @return the color of the point
-     * @author rafael najman
+     * @param cache the sample cache of the thread
+     * @param nX    the x resolution
+     * @param nY    the y resolution
+     * @param x     the column of the point on the sub-pixel grid
+     * @param y     the row of the point on the sub-pixel grid
+     * @return the slot of the sample in the cache
      */
-    private Color getPointColorFromTable(Point point, Hashtable<Point, Color> pointColorTable) {
-        if (!(pointColorTable.containsKey(point))) {
-            Color color = calcPointColor(point);
-            pointColorTable.put(point, color);
-            return color;
-        }
-        return pointColorTable.get(point);
+    private int sample(SampleCache cache, int nX, int nY, int x, int y) {
+        int slot = cache.find(x, y);
+        if (slot >= 0) return slot;
+
+        double scale = 1 << (maxAdaptiveLevel - 1);
+        double right = (x / scale - nX / 2d) * (width / nX);
+        double up = -(y / scale - nY / 2d) * (height / nY);
+        Point point = new Point(
+                position.getX() + vTo.getX() * distance + vRight.getX() * right + vUp.getX() * up,
+                position.getY() + vTo.getY() * distance + vRight.getY() * right + vUp.getY() * up,
+                position.getZ() + vTo.getZ() * distance + vRight.getZ() * right + vUp.getZ() * up);
+        Color color = rayTracer.traceRay(new Ray(position, point.subtract(position)));
+        return cache.put(slot, x, y, color.getRed(), color.getGreen(), color.getBlue());
     }
 }
-
@@ -2,6 +2,7 @@ package renderer;
 
 import primitives.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.util.logging.Level;
@@ -24,6 +25,17 @@ public class ImageWriter {
 	private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
 	private BufferedImage image;
+	/** The backing array of the image - packed RGB pixels, row by row */
+	private final int[] pixels;
+	/**
+	 * The high dynamic range buffer - the unclipped RGB components of the pixels, row by
+	 * row, or null if the pixels are quantized as they are written
+	 */
+	private double[] hdr = null;
+	/** The exposure - the factor of the HDR colors before the tone mapping */
+	private double exposure = 1;
+	/** The tone mapping of the HDR colors */
+	private ToneMapping toneMapping = ToneMapping.CLAMP;
 	private String imageName;
 	
 	private Logger logger = Logger.getLogger("ImageWriter");
@@ -41,6 +53,7 @@ public class ImageWriter {
 		this.nY = nY;
 
 		image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 	}
 
 	// ***************** Getters/Setters ********************** //
@@ -62,13 +75,78 @@ public class ImageWriter {
 		return nX;
 	}
 
+	/**
+	 * Sets whether the pixels are kept in a high dynamic range (HDR) buffer of
+	 * unclipped double components. The exposure and the tone mapping are applied
+	 * only when the image is written (or by {@link #toneMap()}), so they can be
+	 * changed without rendering the image again
+	 * 
+	 * @param  hdr true to keep an HDR buffer
+	 * @return     the image writer itself
+	 */
+	public ImageWriter setHdr(boolean hdr) {
+		if (!hdr)
+			this.hdr = null;
+		else if (this.hdr == null)
+			this.hdr = new double[3 * nX * nY];
+		return this;
+	}
+
+	/**
+	 * Sets the exposure of the HDR buffer
+	 * 
+	 * @param  exposure the factor of the colors before the tone mapping
+	 * @return          the image writer itself
+	 */
+	public ImageWriter setExposure(double exposure) {
+		if (exposure <= 0)
+			throw new IllegalArgumentException("Exposure must be positive");
+		this.exposure = exposure;
+		return this;
+	}
+
+	/**
+	 * Sets the tone mapping of the HDR buffer
+	 * 
+	 * @param  toneMapping the tone mapping
+	 * @return             the image writer itself
+	 */
+	public ImageWriter setToneMapping(ToneMapping toneMapping) {
+		this.toneMapping = toneMapping;
+		return this;
+	}
+
 	// ***************** Operations ******************** //
 
+	/**
+	 * Function toneMap applies the exposure and the tone mapping to the HDR buffer
+	 * and quantizes it into the pixels of the image. It is done by writeToImage,
+	 * and it may be called directly to re-expose the image in memory
+	 */
+	public void toneMap() {
+		if (hdr == null)
+			throw new IllegalStateException("The image writer has no HDR buffer");
+		for (int pixel = 0, index = 0; pixel < pixels.length; ++pixel, index += 3)
+			pixels[pixel] = quantize(hdr[index]) << 16 | quantize(hdr[index + 1]) << 8 | quantize(hdr[index + 2]);
+	}
+
+	/**
+	 * Exposes, tone maps and quantizes an HDR color component
+	 * 
+	 * @param  value the component
+	 * @return       the 8 bits component
+	 */
+	private int quantize(double value) {
+		int result = (int) toneMapping.map(value * exposure);
+		return result > 255 ? 255 : result;
+	}
+
 	/**
 	 * Function writeToImage produces unoptimized png file of the image according to
 	 * pixel color matrix in the directory of the project
 	 */
 	public void writeToImage() {
+		if (hdr != null) toneMap();
 		try {
 			File file = new File(FOLDER_PATH + '/' + imageName + ".png");
 			ImageIO.write(image, "png", file);
@@ -80,14 +158,37 @@ public class ImageWriter {
 
 	/**
 	 * The function writePixel writes a color of a specific pixel into pixel color
-	 * matrix
+	 * matrix (or into the HDR buffer).<br/>
+	 * The color is stored directly in the backing array, so many threads can write
+	 * their pixels concurrently without any locking
 	 * 
 	 * @param xIndex X axis index of the pixel
 	 * @param yIndex Y axis index of the pixel
 	 * @param color  final color of the pixel
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color) {
-		image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+		if (xIndex < 0 || xIndex >= nX || yIndex < 0 || yIndex >= nY)
+			throw new ArrayIndexOutOfBoundsException("Pixel (" + xIndex + "," + yIndex + ") is out of the image");
+		int pixel = yIndex * nX + xIndex;
+		if (hdr == null)
+			pixels[pixel] = color.getRGB();
+		else {
+			hdr[3 * pixel] = color.getRed();
+			hdr[3 * pixel + 1] = color.getGreen();
+			hdr[3 * pixel + 2] = color.getBlue();
+		}
+	}
+
+	/**
+	 * Returns the packed RGB color of a pixel of the image (before the tone mapping
+	 * of an HDR buffer)
+	 * 
+	 * @param  xIndex X axis index of the pixel
+	 * @param  yIndex Y axis index of the pixel
+	 * @return        the packed RGB color
+	 */
+	int getRGB(int xIndex, int yIndex) {
+		return pixels[yIndex * nX + xIndex];
 	}
 
 }
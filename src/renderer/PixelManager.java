@@ -114,10 +114,20 @@ class PixelManager {
      * Finish pixel processing by updating and printing of progress percentage
      */
     void pixelDone() {
+        pixelsDone(1);
+    }
+
+    /**
+     * Finish processing of a group of pixels by updating and printing of progress
+     * percentage
+     *
+     * @param amount the amount of the processed pixels
+     */
+    void pixelsDone(int amount) {
         boolean flag = false;
         int percentage = 0;
         synchronized (mutexPixels) {
-            ++pixels;
+            pixels += amount;
             if (print) {
                 percentage = (int) (1000l * pixels / totalPixels);
                 if (percentage - lastPrinted >= printInterval) {
@@ -0,0 +1,122 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * Accumulation buffer of a progressive render. It keeps the sums of the samples
+ * of every pixel (and of their squares), so that after every pass the mean color
+ * of each pixel can be published and the variance of that mean can be checked.<br/>
+ * A pixel is sampled by one thread at a time, and the passes are separated by the
+ * end of the render of a pass, so the buffer needs no locking.
+ */
+class ProgressiveBuffer {
+    /** Minimal amount of samples of a pixel before its variance is trusted */
+    private static final int MIN_SAMPLES = 4;
+
+    /** Resolution of the image */
+    private final int nX, nY;
+    /** The sums of the RGB components of the samples, 3 per pixel, row by row */
+    private final double[] sums;
+    /** The sums of the squares of the RGB components of the samples, 3 per pixel */
+    private final double[] squares;
+    /** The amount of samples of every pixel */
+    private final int[] samples;
+    /** The converged pixels, that are not sampled any more */
+    private final boolean[] converged;
+    /** The square of the tolerance of the standard error of a pixel, 0 for no convergence */
+    private final double tolerance2;
+
+    /**
+     * Constructs an empty accumulation buffer
+     *
+     * @param nX        the x resolution
+     * @param nY        the y resolution
+     * @param tolerance the standard error of the mean of a color component (on the
+     *                  0-255 scale), below which a pixel is converged, 0 for no
+     *                  convergence
+     */
+    ProgressiveBuffer(int nX, int nY, double tolerance) {
+        this.nX = nX;
+        this.nY = nY;
+        sums = new double[3 * nX * nY];
+        squares = new double[3 * nX * nY];
+        samples = new int[nX * nY];
+        converged = new boolean[nX * nY];
+        tolerance2 = tolerance * tolerance;
+    }
+
+    /**
+     * Checks whether a pixel has converged (at the end of the last published pass)
+     *
+     * @param col the column of the pixel
+     * @param row the row of the pixel
+     * @return true if the pixel needs no more samples
+     */
+    boolean isConverged(int col, int row) {
+        return converged[row * nX + col];
+    }
+
+    /**
+     * Adds a sample to a pixel
+     *
+     * @param col   the column of the pixel
+     * @param row   the row of the pixel
+     * @param color the color of the sample
+     */
+    void add(int col, int row, Color color) {
+        int pixel = row * nX + col;
+        int index = 3 * pixel;
+        double r = color.getRed(), g = color.getGreen(), b = color.getBlue();
+        sums[index] += r;
+        sums[index + 1] += g;
+        sums[index + 2] += b;
+        squares[index] += r * r;
+        squares[index + 1] += g * g;
+        squares[index + 2] += b * b;
+        ++samples[pixel];
+    }
+
+    /**
+     * Writes the mean colors of the pixels to the image writer, and marks the pixels
+     * whose mean has converged
+     *
+     * @param imageWriter the image writer
+     * @return the amount of pixels that have not converged yet
+     */
+    int publish(ImageWriter imageWriter) {
+        int left = 0;
+        for (int row = 0; row < nY; ++row)
+            for (int col = 0; col < nX; ++col) {
+                int pixel = row * nX + col;
+                int n = samples[pixel];
+                if (n == 0) {
+                    ++left;
+                    continue;
+                }
+                int index = 3 * pixel;
+                imageWriter.writePixel(col, row,
+                        new Color(sums[index] / n, sums[index + 1] / n, sums[index + 2] / n));
+                if (!converged[pixel] && !(converged[pixel] = hasConverged(index, n)))
+                    ++left;
+            }
+        return left;
+    }
+
+    /**
+     * Checks whether the variance of the mean of every component of a pixel is within
+     * the tolerance
+     *
+     * @param index the index of the first component of the pixel
+     * @param n     the amount of samples of the pixel
+     * @return true if the pixel has converged
+     */
+    private boolean hasConverged(int index, int n) {
+        if (tolerance2 == 0 || n < MIN_SAMPLES) return false;
+        for (int i = index; i < index + 3; ++i) {
+            // the unbiased variance of the samples, divided by their amount
+            double variance = (squares[i] - sums[i] * sums[i] / n) / (n - 1) / n;
+            if (variance > tolerance2) return false;
+        }
+        return true;
+    }
+}
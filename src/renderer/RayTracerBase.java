@@ -30,4 +30,16 @@ public abstract class RayTracerBase {
     public abstract Color traceRay(Ray ray);
 
     public abstract Color traceRays(List<Ray> rays);
+
+    /**
+     * Traces a packet of rays and calculates their colors. The default implementation traces
+     * the rays one by one, tracers override it to trace coherent rays together.
+     * @param rays   the rays to trace
+     * @param colors the array to fill with the colors of the rays
+     * @param count  the amount of the rays
+     */
+    public void tracePacket(Ray[] rays, Color[] colors, int count) {
+        for (int i = 0; i < count; ++i)
+            colors[i] = traceRay(rays[i]);
+    }
 }
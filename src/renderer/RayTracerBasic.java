@@ -5,8 +5,13 @@ import primitives.*;
 
 import static primitives.Util.*;
 import scene.Scene;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
 import geometries.Intersectable.GeoPoint;
+import geometries.RayPacket;
 
 /**
  * A basic Ray Tracer implementation that extends the RayTracerBase abstract class.
@@ -19,6 +24,17 @@ public class RayTracerBasic extends RayTracerBase {
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final Double3 INITIAL_K = new Double3(1.0d);
 
+    /** The work stacks of the iterative tracing, one per thread */
+    private final ThreadLocal<RayStack> rayStack = ThreadLocal.withInitial(RayStack::new);
+    /** The ray packets of the packet tracing, one per thread */
+    private final ThreadLocal<RayPacket> rayPacket = new ThreadLocal<>();
+    /** The amount of the traced secondary (reflected and refracted) rays */
+    private final LongAdder secondaryRays = new LongAdder();
+    /** The amount of the secondary rays that Russian roulette terminated */
+    private final LongAdder savedRays = new LongAdder();
+    /** The survival heuristic of Russian roulette, null if it is disabled */
+    private ToDoubleFunction<Double3> survival = null;
+
     /**
      * Constructor for the RayTracerBasic class.
      *
@@ -36,7 +52,7 @@ public class RayTracerBasic extends RayTracerBase {
      */
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint geoPoint = scene.geometries.findClosestIntersection(ray);
+        GeoPoint geoPoint = scene.getRenderGeometries().findClosestIntersection(ray);
 
         if (geoPoint == null)
             return this.scene.background;
@@ -45,29 +61,188 @@ public class RayTracerBasic extends RayTracerBase {
     }
 
     /**
-     * Calculates the color of an object at a specific point.
+     * Traces a packet of coherent (e.g. primary) rays: their closest intersections are found
+     * together, by one traversal of the geometries, and then they are shaded one by one.
+     *
+     * @param rays   the rays to trace
+     * @param colors the array to fill with the colors of the rays
+     * @param count  the amount of the rays
+     */
+    @Override
+    public void tracePacket(Ray[] rays, Color[] colors, int count) {
+        RayPacket packet = rayPacket.get();
+        if (packet == null || packet.capacity() < count) {
+            packet = new RayPacket(count);
+            rayPacket.set(packet);
+        }
+        packet.load(rays, count);
+        scene.getRenderGeometries().findClosestIntersections(packet);
+        for (int i = 0; i < count; ++i) {
+            GeoPoint geoPoint = packet.getClosest(i);
+            colors[i] = geoPoint == null ? scene.background : calcColor(geoPoint, rays[i]);
+        }
+    }
+
+    /**
+     * Calculates the color of an object at a specific point, considering local and global effects.
+     * The reflected and refracted rays are traced iteratively, by the work stack of the thread,
+     * instead of by recursion. Every ray carries its weight - the product of the reflection and
+     * refraction coefficients along its path - so its color is added to the result directly.
      *
      * @param geoPoint The GeoPoint object representing the intersection point with the Ray.
      * @param ray      The Ray object associated with the calculation.
      * @return The Color of the object at the intersection point.
      */
     private Color calcColor(GeoPoint geoPoint, Ray ray) {
-        return scene.ambientLight.getIntensity()
-                .add(calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K));
+        Color ambient = scene.ambientLight.getIntensity();
+        double r = ambient.getRed(), g = ambient.getGreen(), b = ambient.getBlue();
+
+        RayStack stack = rayStack.get();
+        GeoPoint gp = geoPoint;
+        Double3 k = INITIAL_K;
+        int level = MAX_CALC_COLOR_LEVEL;
+        long secondary = 0;
+        while (true) {
+            Color color = gp == null ? scene.background : calcLocalEffects(gp, ray, k);
+            r += color.getRed() * k.getD1();
+            g += color.getGreen() * k.getD2();
+            b += color.getBlue() * k.getD3();
+
+            if (gp != null && level > 1) {
+                Vector v = ray.getDir();
+                Vector n = gp.geometry.getNormal(gp.point);
+                Material material = gp.getMaterial();
+                // the refracted ray is pushed first, so the reflected ray is traced first
+                Double3 weight;
+                if (!material.getKt().productLowerThan(k, MIN_CALC_COLOR_K)
+                        && (weight = survive(material.getKt().product(k))) != null)
+                    stack.push(constructRefractedRay(gp.point, v, n), weight, level - 1);
+                if (!material.getKr().productLowerThan(k, MIN_CALC_COLOR_K)
+                        && (weight = survive(material.getKr().product(k))) != null)
+                    stack.push(constructReflectedRay(gp.point, v, n), weight, level - 1);
+            }
+
+            if (stack.size == 0) break;
+            --stack.size;
+            ray = stack.rays[stack.size];
+            k = stack.weights[stack.size];
+            level = stack.levels[stack.size];
+            gp = findClosestIntersection(ray);
+            ++secondary;
+        }
+
+        if (secondary != 0) secondaryRays.add(secondary);
+        return new Color(r, g, b);
+    }
+
+    /**
+     * Plays Russian roulette for a secondary ray, if it is enabled: the ray survives by the
+     * probability of the survival heuristic, and the weight of a survivor is divided by that
+     * probability, so the expected color is not biased.
+     *
+     * @param weight the weight of the ray
+     * @return the weight of the surviving ray, or null if the ray is terminated
+     */
+    private Double3 survive(Double3 weight) {
+        if (survival == null) return weight;
+        double probability = survival.applyAsDouble(weight);
+        if (probability >= 1) return weight;
+        if (probability <= 0 || ThreadLocalRandom.current().nextDouble() >= probability) {
+            savedRays.increment();
+            return null;
+        }
+        return weight.scale(1 / probability);
+    }
+
+    /**
+     * Enables Russian roulette termination of the secondary rays, by the default survival
+     * heuristic: a ray whose largest weight component is below the threshold survives by the
+     * probability of that component divided by the threshold.
+     *
+     * @param threshold the weight below which rays may be terminated, 0 to disable
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setRussianRoulette(double threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Russian roulette threshold cannot be negative");
+        return setRussianRoulette(threshold == 0 ? null
+                : k -> Math.max(k.getD1(), Math.max(k.getD2(), k.getD3())) / threshold);
+    }
+
+    /**
+     * Enables Russian roulette termination of the secondary rays, by a survival heuristic.
+     * The heuristic returns the survival probability of a ray by its weight (the product of
+     * the reflection and refraction coefficients along its path); a probability of 1 or more
+     * keeps the ray as it is.
+     *
+     * @param survival the survival heuristic, null to disable
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setRussianRoulette(ToDoubleFunction<Double3> survival) {
+        this.survival = survival;
+        return this;
     }
 
     /**
-     * Calculates the color of an object at a specific point recursively, considering local and global effects.
+     * Returns the amount of the secondary rays that Russian roulette terminated since the
+     * construction of the ray tracer (or since the last reset) - not counting the rays that
+     * they would have spawned
      *
-     * @param gp    The GeoPoint object representing the intersection point with the Ray.
-     * @param ray   The Ray object associated with the calculation.
-     * @param level The recursion level.
-     * @param k     The accumulated transparency coefficient.
-     * @return The Color of the object at the intersection point, considering local and global effects.
+     * @return the amount of the saved rays
      */
-    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(gp, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(gp, ray, level, k));
+    public long getSavedRays() {
+        return savedRays.sum();
+    }
+
+    /**
+     * Returns the amount of the reflected and refracted rays that were traced since the
+     * construction of the ray tracer (or since the last reset)
+     *
+     * @return the amount of the secondary rays
+     */
+    public long getSecondaryRays() {
+        return secondaryRays.sum();
+    }
+
+    /** Resets the counters of the traced rays, e.g. before every frame */
+    public void resetStatistics() {
+        secondaryRays.reset();
+        savedRays.reset();
+    }
+
+    /**
+     * Work stack of the iterative tracing of one thread - the secondary rays that are still
+     * to be traced, with their weights and levels. The arrays are allocated once per thread,
+     * the depth-first order keeps the stack no deeper than two rays per level.
+     */
+    private static class RayStack {
+        /** The rays */
+        private Ray[] rays = new Ray[2 * MAX_CALC_COLOR_LEVEL];
+        /** The weights of the rays */
+        private Double3[] weights = new Double3[2 * MAX_CALC_COLOR_LEVEL];
+        /** The levels of the rays */
+        private int[] levels = new int[2 * MAX_CALC_COLOR_LEVEL];
+        /** The amount of the rays in the stack */
+        private int size = 0;
+
+        /**
+         * Pushes a ray to the stack
+         *
+         * @param ray    the ray
+         * @param weight the weight of the ray
+         * @param level  the level of the ray
+         */
+        void push(Ray ray, Double3 weight, int level) {
+            if (size == rays.length) {
+                rays = Arrays.copyOf(rays, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                levels = Arrays.copyOf(levels, 2 * size);
+            }
+            rays[size] = ray;
+            weights[size] = weight;
+            levels[size] = level;
+            ++size;
+        }
     }
 
     /**
@@ -79,7 +254,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return The Color resulting from the local effects.
      */
     private Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Double3 k) {
-        Color color = geoPoint.geometry.getEmission();
+        Color color = geoPoint.getEmission();
         Point point = geoPoint.point;
         Vector n = geoPoint.geometry.getNormal(point);
         Vector v = ray.getDir();
@@ -89,15 +264,20 @@ public class RayTracerBasic extends RayTracerBase {
         if (isZero(nv))
             return color;
 
-        Double3 Kd = geoPoint.geometry.getMaterial().Kd;
-        Double3 Ks = geoPoint.geometry.getMaterial().Ks;
-        double nSh = geoPoint.geometry.getMaterial().nShininess;
+        Material material = geoPoint.getMaterial();
+        Double3 Kd = material.getKd();
+        Double3 Ks = material.getKs();
+        int nSh = material.getShininess();
+        // a material without specular reflection needs no specular factor
+        boolean specularMaterial = material.isSpecular();
+
+        // the color is accumulated on primitive components, one Color object is created at the end
+        double r = color.getRed(), g = color.getGreen(), b = color.getBlue();
 
         // Iterate over all light sources in the scene
         for (LightSource light : scene.lights) {
             Vector l = light.getL(point);
             double ln = alignZero(l.dotProduct(n));
-            Color intensity = light.getIntensity(point);
 
             // Check if the light direction and surface normal are on the same side of the surface
             if (ln * nv > 0) {
@@ -105,144 +285,79 @@ public class RayTracerBasic extends RayTracerBase {
                 Double3 ktr = transparency(geoPoint, light, l, n);
 
                 // Check if the accumulated transparency coefficient multiplied by the current transparency coefficient is above the minimum threshold
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    // Calculate the diffuse and specular components of the local effects
-                    Double3 effects = calcDiffuse(ln, Kd).add(calcSpecular(l, n, v, nSh, Ks));
+                if (!ktr.productLowerThan(k, MIN_CALC_COLOR_K)) {
+                    // Calculate the diffuse and specular factors of the local effects
+                    double diffuse = calcDiffuse(ln);
+                    double specular = specularMaterial ? calcSpecular(l, n, v, nSh) : 0;
 
                     // Add the scaled intensity of the light source multiplied by the local effects to the accumulated color
-                    color = color.add(intensity.scale(effects).scale(ktr));
+                    Color intensity = light.getIntensity(point);
+                    r += intensity.getRed() * (Kd.getD1() * diffuse + Ks.getD1() * specular) * ktr.getD1();
+                    g += intensity.getGreen() * (Kd.getD2() * diffuse + Ks.getD2() * specular) * ktr.getD2();
+                    b += intensity.getBlue() * (Kd.getD3() * diffuse + Ks.getD3() * specular) * ktr.getD3();
                 }
             }
         }
 
+        color = new Color(r, g, b);
         return color;
     }
 
 
     /**
-     * Calculates the global effects (reflection and refraction) of a light source on a given geographical point and ray.
-     *
-     * @param gp    The GeoPoint object representing the geographical point at which to calculate the global effects.
-     * @param ray   The Ray object associated with the calculation.
-     * @param level The recursion level.
-     * @param k     The accumulated transparency coefficient.
-     * @return The Color resulting from the global effects.
-     */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = Color.BLACK;
-        Vector v = ray.getDir();
-        Vector n = gp.geometry.getNormal(gp.point);
-        Material material = gp.geometry.getMaterial();
-        Double3 kkr = material.Kr.product(k);
-
-        // Check if the accumulated reflection coefficient is above the minimum threshold
-        if (!kkr.lowerThan(MIN_CALC_COLOR_K))
-            // Add the color resulting from the reflected ray to the accumulated color
-            color = color.add(calcGlobalEffect(constructReflectedRay(gp.point, v, n), level, material.Kr, kkr));
-
-        Double3 kkt = material.Kt.product(k);
-
-        // Check if the accumulated refraction coefficient is above the minimum threshold
-        if (!kkt.lowerThan(MIN_CALC_COLOR_K))
-            // Add the color resulting from the refracted ray to the accumulated color
-            color = color.add(calcGlobalEffect(constructRefractedRay(gp.point, v, n), level, material.Kt, kkt));
-
-        return color;
-    }
-
-
-    /**
-     * Calculates the global effect (reflection or refraction) of a light source on a given geographical point and ray.
-     *
-     * @param ray   The Ray object representing the ray to trace.
-     * @param level The recursion level.
-     * @param kx    The accumulated transparency coefficient of the object.
-     * @param kkx   The accumulated transparency coefficient of the effect.
-     * @return The Color resulting from the global effect.
-     */
-    private Color calcGlobalEffect(Ray ray, int level, Double3 kx, Double3 kkx) {
-        GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx)).scale(kx);
-    }
-
-    /**
-     * Calculates the diffuse reflection of light based on the given parameters.
+     * Calculates the factor of the diffuse reflection of light, to be scaled by the diffuse coefficient.
      *
      * @param ln The dot product of the light direction and the surface normal.
-     * @param Kd The diffuse reflection coefficient.
-     * @return The diffuse reflection color.
+     * @return The diffuse reflection factor.
      */
-    private Double3 calcDiffuse(double ln, Double3 Kd) {
-        double abs = Math.abs(ln);
-        return Kd.scale(abs);
+    private double calcDiffuse(double ln) {
+        return Math.abs(ln);
     }
 
     /**
-     * Calculates the specular reflection of light based on the given parameters.
+     * Calculates the factor of the specular reflection of light, to be scaled by the specular coefficient.
+     * The shininess is an integer, so the power is raised by squaring, and a reflection that points
+     * away from the viewer is rejected by the sign of the dot product before any other calculation.
      *
      * @param l   The light direction vector.
      * @param n   The surface normal vector.
      * @param v   The view direction vector.
      * @param nSh The shininess coefficient.
-     * @param Ks  The specular reflection coefficient.
-     * @return The specular reflection color.
-     */
-    private Double3 calcSpecular(Vector l, Vector n, Vector v, double nSh, Double3 Ks) {
-        Vector r = reflectionVector(l, n);
-        double vr = v.scale(-1).dotProduct(r);
-        double max = Math.max(0, vr);
-        double pow = Math.pow(max, nSh);
-
-        return Ks.scale(alignZero(pow));
-    }
-
-    /**
-     * Checks if a given point on an object is unshaded by other objects in the scene.
-     *
-     * @param l     The light direction vector.
-     * @param n     The surface normal vector.
-     * @param gp    The GeoPoint object representing the geographical point.
-     * @param light The LightSource object representing the light source.
-     * @return true if the point is unshaded, false otherwise.
+     * @return The specular reflection factor.
      */
-    private boolean unshaded(Vector l, Vector n, GeoPoint gp, LightSource light) {
-        // Calculate the direction of the light from the point on the object
-        Vector lightDirection = l.scale(-1);
-
-        // Create a ray from the point on the object towards the light source
-        Ray lightRay = new Ray(gp.point, lightDirection, n);
-
-        // Calculate the distance between the point on the object and the light source
-        double distance = light.getDistance(gp.point);
+    private double calcSpecular(Vector l, Vector n, Vector v, int nSh) {
+        // any factor raised to the power of 0 is 1
+        if (nSh == 0)
+            return 1;
 
-        // Find intersections between the light ray and objects in the scene within the given distance
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, distance);
-
-        // If no intersections are found, the point is unshaded
-        if (intersections == null)
-            return true;
-
-        // Check if any of the intersections have a transparency coefficient below a minimum threshold
-        for (GeoPoint geoPoint : intersections) {
-            // If the transparency coefficient of an intersected object falls below the minimum threshold, the point is shaded
-            if (geoPoint.geometry.getMaterial().Kt.lowerThan(MIN_CALC_COLOR_K)) {
-                return false;
-            }
-        }
-
-        // If no intersections have a transparency coefficient below the minimum threshold, the point is unshaded
-        return true;
+        // the reflection vector r = l - 2(l*n)n is calculated on primitive coordinates, without vectors
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        double ln2 = l.dotProduct(n) * 2;
+        double rx = l.getX() - nx * ln2;
+        double ry = l.getY() - ny * ln2;
+        double rz = l.getZ() - nz * ln2;
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        // -v*r has the sign of -v*r/|r|, no highlight if the reflection points away from the viewer
+        if (vx * rx + vy * ry + vz * rz >= 0)
+            return 0;
+
+        double rLength = Math.sqrt(rx * rx + ry * ry + rz * rz);
+        double vr = -vx * (rx / rLength) - vy * (ry / rLength) - vz * (rz / rLength);
+        return alignZero(pow(Math.max(0, vr), nSh));
     }
 
     @Override
     public Color traceRays(List<Ray> rays) {
-
-        Color color = Color.BLACK;
+        // the colors are summed in primitives, without a new color for every ray
+        double r = 0, g = 0, b = 0;
         for (Ray ray : rays) {
-            color = color.add(traceRay(ray));
+            Color color = traceRay(ray);
+            r += color.getRed();
+            g += color.getGreen();
+            b += color.getBlue();
         }
-        return color.reduce(rays.size());
-
+        int amount = rays.size();
+        return new Color(r / amount, g / amount, b / amount);
     }
 
 
@@ -253,10 +368,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return The GeoPoint object representing the closest intersection point, or null if there is no intersection.
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersectionPoints = scene.geometries.findGeoIntersections(ray);
-        if (intersectionPoints == null)
-            return null;
-        return ray.findClosestGeoPoint(intersectionPoints);
+        return scene.getRenderGeometries().findClosestIntersection(ray);
     }
 
     /**
@@ -316,29 +428,8 @@ public class RayTracerBasic extends RayTracerBase {
         // Calculate the distance between the intersection point and the light source
         double distance = light.getDistance(gp.point);
 
-        // Find intersections between the light ray and objects in the scene within the given distance
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, distance);
-
-        // If no intersections are found, return full transparency (transparency coefficient of 1.0)
-        if (intersections == null)
-            return Double3.ONE;
-
-        // Initialize the transparency coefficient as full transparency
-        Double3 ktr = Double3.ONE;
-
-        // Iterate over the intersections and update the transparency coefficient
-        for (GeoPoint geoPoint : intersections) {
-        // Multiply the transparency coefficient by the material's transparency coefficient at the intersection point
-            ktr = ktr.product(geoPoint.geometry.getMaterial().Kt);
-
-
-            // If the transparency coefficient falls below a minimum threshold, return full opacity (transparency coefficient of 0.0)
-            if (ktr.lowerThan(MIN_CALC_COLOR_K))
-                return Double3.ZERO;
-        }
-
-        // Return the final transparency coefficient
-        return ktr;
+        // Multiply the transparency coefficients of the objects between the point and the light source,
+        // the any-hit query stops at the first occluder that makes the point fully shaded
+        return scene.getRenderGeometries().findTransparency(lightRay, distance, MIN_CALC_COLOR_K);
     }
 }
-
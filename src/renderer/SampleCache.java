@@ -0,0 +1,138 @@
+package renderer;
+
+import java.util.Arrays;
+
+/**
+ * Cache of the colors of the adaptive super-sampling samples of one thread. The
+ * samples lie on an integer grid of sub-pixel coordinates over the whole image, so
+ * the corners that neighbouring pixels share are traced only once, as long as the
+ * pixels are rendered by the same thread (e.g. in a tile).<br/>
+ * The cache is a primitive open-addressing hash table (with linear probing) of the
+ * packed coordinates, so neither the keys nor the colors are boxed. When it grows
+ * beyond its limit it is simply cleared - the next pixels trace their corners again.<br/>
+ * The tables are allocated by the first pixel, and are released at the end of the render,
+ * since the thread (e.g. of a shared executor) may live much longer than the render.
+ */
+class SampleCache {
+    /** Key of an empty slot (the coordinates are never negative) */
+    private static final long EMPTY = -1;
+    /** Initial capacity of the table (a power of 2) */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    /** Maximal amount of cached samples before the cache is cleared */
+    private static final int MAX_SIZE = 1 << 16;
+
+    /** The packed coordinates of the samples, null before the first pixel and after the release */
+    private long[] keys = null;
+    /** The RGB components of the samples, 3 per slot */
+    private double[] colors = null;
+    /** The amount of cached samples */
+    private int size = 0;
+
+    /** The accumulated RGB components of the current pixel */
+    final double[] sum = new double[3];
+
+    /**
+     * Prepares the cache for a pixel: allocates the tables if there are none, clears
+     * them if they are full, and resets the accumulated color
+     */
+    void startPixel() {
+        if (keys == null) {
+            keys = new long[INITIAL_CAPACITY];
+            colors = new double[3 * INITIAL_CAPACITY];
+            Arrays.fill(keys, EMPTY);
+        } else if (size >= MAX_SIZE) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+        sum[0] = sum[1] = sum[2] = 0;
+    }
+
+    /** Releases the tables of the cache, the next pixel starts with an empty cache of the initial capacity */
+    void release() {
+        keys = null;
+        colors = null;
+        size = 0;
+    }
+
+    /**
+     * Finds the slot of a sample
+     *
+     * @param x the column of the sample on the sub-pixel grid
+     * @param y the row of the sample on the sub-pixel grid
+     * @return the slot of the sample if it is cached, otherwise -(insertion slot) - 1
+     */
+    int find(int x, int y) {
+        long key = (long) y << 32 | x;
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    /**
+     * Caches the color of a sample that is not in the cache
+     *
+     * @param insertion the value that {@link #find(int, int)} returned for the sample
+     * @param x         the column of the sample on the sub-pixel grid
+     * @param y         the row of the sample on the sub-pixel grid
+     * @param r         the red component
+     * @param g         the green component
+     * @param b         the blue component
+     * @return the slot of the sample
+     */
+    int put(int insertion, int x, int y, double r, double g, double b) {
+        int slot = -insertion - 1;
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            slot = -find(x, y) - 1;
+        }
+        keys[slot] = (long) y << 32 | x;
+        colors[3 * slot] = r;
+        colors[3 * slot + 1] = g;
+        colors[3 * slot + 2] = b;
+        ++size;
+        return slot;
+    }
+
+    /**
+     * Returns a color component of a cached sample
+     *
+     * @param slot      the slot of the sample
+     * @param component 0 for red, 1 for green, 2 for blue
+     * @return the component
+     */
+    double get(int slot, int component) {
+        return colors[3 * slot + component];
+    }
+
+    /** Doubles the capacity of the table, keeping the load factor at most 1/2 */
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldColors = colors;
+        keys = new long[2 * oldKeys.length];
+        colors = new double[2 * oldColors.length];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int old = 0; old < oldKeys.length; ++old) {
+            if (oldKeys[old] == EMPTY) continue;
+            int slot = hash(oldKeys[old]) & mask;
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[old];
+            System.arraycopy(oldColors, 3 * old, colors, 3 * slot, 3);
+        }
+    }
+
+    /**
+     * Mixes the bits of a packed key, so that neighbouring samples spread over the table
+     *
+     * @param key the key
+     * @return the hash
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ key >>> 32);
+    }
+}
@@ -0,0 +1,210 @@
+package renderer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Patterns of the positions of the samples in a pixel. The samples are generated
+ * on demand, sample by sample, so no list of rays is built for a pixel.<br/>
+ * The grid patterns divide the pixel into side x side cells, numbered row by row.
+ * The low-discrepancy sequences (Halton, Sobol, R2) spread any amount of samples
+ * evenly, so they reach the same noise with fewer samples. They are randomized per
+ * pixel by a seed (so neighbouring pixels do not share the same pattern), and keep
+ * no shared state - many threads can sample without any contention.
+ */
+public enum SamplePattern {
+    /** The centers of the cells - a regular grid (the default) */
+    GRID {
+        @Override
+        public double sample(int index, int side, int dimension, int seed) {
+            return (stratum(index, side, dimension) + 0.5) / side;
+        }
+
+        @Override
+        double offset(int index, int side, int dimension, int seed) {
+            if (index >= side * side) return jitter(index, side, dimension, seed);
+            return stratum(index, side, dimension) - (side - 1d) / 2;
+        }
+    },
+    /**
+     * A random position in every cell (stratified jittered sampling) - the samples
+     * still cover the pixel evenly, but regular patterns do not alias any more
+     */
+    JITTERED {
+        @Override
+        public double sample(int index, int side, int dimension, int seed) {
+            return (stratum(index, side, dimension) + ThreadLocalRandom.current().nextDouble()) / side;
+        }
+
+        @Override
+        double offset(int index, int side, int dimension, int seed) {
+            if (index >= side * side) return jitter(index, side, dimension, seed);
+            return stratum(index, side, dimension) - side / 2d + ThreadLocalRandom.current().nextDouble();
+        }
+    },
+    /** The Halton sequence (bases 2 and 3), shifted randomly per pixel */
+    HALTON {
+        @Override
+        public double sample(int index, int side, int dimension, int seed) {
+            double value = dimension == 0 ? radicalInverse2(index) : radicalInverse3(index);
+            return fraction(value + shift(seed, dimension));
+        }
+    },
+    /** The first two dimensions of the Sobol sequence, scrambled randomly per pixel */
+    SOBOL {
+        @Override
+        public double sample(int index, int side, int dimension, int seed) {
+            int scramble = mix(seed + dimension);
+            int bits;
+            if (dimension == 0)
+                bits = Integer.reverse(index) ^ scramble;
+            else {
+                bits = scramble;
+                // the direction numbers of the second dimension are v(k+1) = v(k) ^ (v(k) >>> 1)
+                for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1)
+                    if ((index & 1) != 0) bits ^= v;
+            }
+            return (bits >>> 8) * 0x1p-24;
+        }
+    },
+    /** The R2 sequence (of the plastic number), shifted randomly per pixel */
+    R2 {
+        @Override
+        public double sample(int index, int side, int dimension, int seed) {
+            return fraction(0.5 + (dimension == 0 ? R2_X : R2_Y) * index + shift(seed, dimension));
+        }
+    };
+
+    /** The plastic number, that defines the R2 sequence */
+    private static final double PLASTIC = 1.32471795724474602596;
+    /** The step of the R2 sequence in the first dimension */
+    private static final double R2_X = 1 / PLASTIC;
+    /** The step of the R2 sequence in the second dimension */
+    private static final double R2_Y = 1 / (PLASTIC * PLASTIC);
+
+    /**
+     * Returns a coordinate of a sample in the unit square
+     *
+     * @param index     the index of the sample, from 0 to side * side - 1 for the grid patterns
+     * @param side      the amount of cells along the side of the grid patterns
+     * @param dimension 0 for the column (x) coordinate, 1 for the row (y) coordinate
+     * @param seed      the seed of the randomization of the sequence, e.g. by {@link #seed(int, int)}
+     * @return the coordinate, between 0 and 1
+     */
+    public abstract double sample(int index, int side, int dimension, int seed);
+
+    /**
+     * Returns the coordinate of a sample, relative to the center of the pixel, in
+     * units of a cell. The samples go on beyond the side * side ones (e.g. for the
+     * passes of a progressive render): the low-discrepancy sequences simply continue,
+     * and the grid patterns, that have no more cells, continue by random positions in
+     * the cells, a round of the cells after another.
+     *
+     * @param index     the index of the sample, any non-negative index
+     * @param side      the amount of cells along the side of the pixel
+     * @param dimension 0 for the column (x) coordinate, 1 for the row (y) coordinate
+     * @param seed      the seed of the randomization of the sequence
+     * @return the coordinate, between -side/2 and side/2
+     */
+    double offset(int index, int side, int dimension, int seed) {
+        return sample(index, side, dimension, seed) * side - side / 2d;
+    }
+
+    /**
+     * Returns the seed of the randomization of the samples of a pixel. The seed
+     * depends only on the pixel, so the passes of a progressive render continue
+     * the same sequence.
+     *
+     * @param col the column of the pixel
+     * @param row the row of the pixel
+     * @return the seed
+     */
+    public static int seed(int col, int row) {
+        return mix(col * 0x9E3779B9 ^ row);
+    }
+
+    /**
+     * Returns the cell of a sample along a dimension
+     *
+     * @param index     the index of the sample
+     * @param side      the amount of cells along the side of the pixel
+     * @param dimension 0 for the column, 1 for the row
+     * @return the column or the row of the cell
+     */
+    private static int stratum(int index, int side, int dimension) {
+        return dimension == 0 ? index % side : index / side;
+    }
+
+    /**
+     * Returns the coordinate of a sample beyond the grid - a random position in the cell
+     * of the index modulo side * side. The position is a hash of the seed and the index
+     * (rather than a random number), so a progressive render is repeatable.
+     *
+     * @param index     the index of the sample, from side * side on
+     * @param side      the amount of cells along the side of the pixel
+     * @param dimension 0 for the column, 1 for the row
+     * @param seed      the seed of the pixel
+     * @return the coordinate, between -side/2 and side/2
+     */
+    private static double jitter(int index, int side, int dimension, int seed) {
+        double random = (mix(seed ^ mix(2 * index + dimension)) >>> 8) * 0x1p-24;
+        return stratum(index % (side * side), side, dimension) - side / 2d + random;
+    }
+
+    /**
+     * Mixes the bits of a number (the finalizer of MurmurHash3)
+     *
+     * @param x the number
+     * @return the mixed bits
+     */
+    private static int mix(int x) {
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        return x ^ x >>> 16;
+    }
+
+    /**
+     * Returns the random shift of a pixel in a dimension
+     *
+     * @param seed      the seed of the pixel
+     * @param dimension the dimension
+     * @return the shift, between 0 and 1
+     */
+    private static double shift(int seed, int dimension) {
+        return (mix(seed + dimension) >>> 8) * 0x1p-24;
+    }
+
+    /**
+     * Returns the fractional part of a non-negative number
+     *
+     * @param x the number
+     * @return the fractional part
+     */
+    private static double fraction(double x) {
+        return x - (long) x;
+    }
+
+    /**
+     * Returns the radical inverse of an index in base 2 (the van der Corput sequence)
+     *
+     * @param index the index
+     * @return the radical inverse, between 0 and 1
+     */
+    private static double radicalInverse2(int index) {
+        return (Integer.reverse(index) >>> 8) * 0x1p-24;
+    }
+
+    /**
+     * Returns the radical inverse of an index in base 3
+     *
+     * @param index the index
+     * @return the radical inverse, between 0 and 1
+     */
+    private static double radicalInverse3(int index) {
+        double result = 0, digit = 1d / 3;
+        for (; index > 0; index /= 3, digit /= 3)
+            result += index % 3 * digit;
+        return result;
+    }
+}
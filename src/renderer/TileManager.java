@@ -0,0 +1,198 @@
+package renderer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * TileManager is a helper class for multi-threading in the renderer, like
+ * {@link PixelManager}, but it hands out rectangular tiles of pixels instead of
+ * single pixels.<br/>
+ * The tiles are allocated by an atomic counter without locking, and each thread
+ * counts its own progress; the counters are summed only when a tile is finished,
+ * for the progress percentage printing.<br/>
+ * A thread that fails reports its exception, then no more tiles are handed out,
+ * and the waiting thread gets the exception instead of waiting for the lost tiles.
+ */
+class TileManager {
+    /**
+     * Immutable class for object containing allocated tile of pixels
+     *
+     * @param col    the first column of the tile
+     * @param row    the first row of the tile
+     * @param width  the amount of columns in the tile
+     * @param height the amount of rows in the tile
+     */
+    record Tile(int col, int row, int width, int height) {
+    }
+
+    /**
+     * Distance (in longs) between the progress counters of the threads, so that
+     * every counter is in its own cache line
+     */
+    private static final int COUNTER_STRIDE = 8;
+    /**
+     * Printing format
+     */
+    private static final String PRINT_FORMAT = "%5.1f%%\r";
+
+    /**
+     * Maximum rows of pixels
+     */
+    private final int maxRows;
+    /**
+     * Maximum columns of pixels
+     */
+    private final int maxCols;
+    /**
+     * Size of the square tiles (the tiles in the last row and column may be smaller)
+     */
+    private final int tileSize;
+    /**
+     * Amount of tiles in a row of tiles
+     */
+    private final int tileCols;
+    /**
+     * Total amount of tiles
+     */
+    private final int totalTiles;
+    /**
+     * Total amount of pixels in the generated image
+     */
+    private final long totalPixels;
+
+    /**
+     * Index of the next tile to be allocated
+     */
+    private final AtomicInteger nextTile = new AtomicInteger();
+    /**
+     * Amount of pixels processed by each thread
+     */
+    private final AtomicLongArray pixels;
+    /**
+     * Count down of the tiles that are not finished yet
+     */
+    private final CountDownLatch tilesLeft;
+    /**
+     * The first exception of a thread that failed, null while no thread failed
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /**
+     * Last printed progress update percentage
+     */
+    private final AtomicInteger lastPrinted = new AtomicInteger();
+
+    /**
+     * Flag of debug printing of progress percentage
+     */
+    private final boolean print;
+    /**
+     * Progress percentage printing interval
+     */
+    private final long printInterval;
+
+    /**
+     * Initialize tile manager data for multi-threading
+     *
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize the size of the square tiles
+     * @param threads  the amount of threads
+     * @param interval print time interval in seconds, 0 if printing is not
+     *                 required
+     */
+    TileManager(int maxRows, int maxCols, int tileSize, int threads, double interval) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        this.maxRows = maxRows;
+        this.maxCols = maxCols;
+        this.tileSize = tileSize;
+        tileCols = (maxCols + tileSize - 1) / tileSize;
+        totalTiles = tileCols * ((maxRows + tileSize - 1) / tileSize);
+        totalPixels = (long) maxRows * maxCols;
+        pixels = new AtomicLongArray(threads * COUNTER_STRIDE);
+        tilesLeft = new CountDownLatch(totalTiles);
+        printInterval = (int) (interval * 10);
+        if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+    }
+
+    /**
+     * Provides the next available tile, the function is thread-safe without locking.
+     *
+     * @return the next tile, or null if there are no more tiles
+     */
+    Tile nextTile() {
+        if (failure.get() != null) return null;
+        int index = nextTile.getAndIncrement();
+        if (index >= totalTiles) return null;
+
+        int col = index % tileCols * tileSize;
+        int row = index / tileCols * tileSize;
+        return new Tile(col, row, Math.min(tileSize, maxCols - col), Math.min(tileSize, maxRows - row));
+    }
+
+    /**
+     * Finish tile processing by updating the progress counter of the thread and
+     * printing of progress percentage
+     *
+     * @param thread the index of the thread that processed the tile
+     * @param tile   the processed tile
+     */
+    void tileDone(int thread, Tile tile) {
+        int slot = thread * COUNTER_STRIDE;
+        // only the owner thread writes its counter
+        pixels.lazySet(slot, pixels.get(slot) + (long) tile.width() * tile.height());
+        tilesLeft.countDown();
+        if (!print) return;
+
+        long done = 0;
+        for (int i = 0; i < pixels.length(); i += COUNTER_STRIDE)
+            done += pixels.get(i);
+        int percentage = (int) (1000l * done / totalPixels);
+        if (percentage - lastPrinted.get() < printInterval) return;
+        // printing is rare, so it is serialized to keep the percentages in order
+        synchronized (this) {
+            if (percentage - lastPrinted.get() >= printInterval) {
+                lastPrinted.set(percentage);
+                System.out.printf(PRINT_FORMAT, percentage / 10d);
+            }
+        }
+    }
+
+    /**
+     * Reports the failure of a thread: the rest of the tiles are not handed out, and
+     * the thread that waits for the tiles is released
+     *
+     * @param exception the exception of the thread
+     */
+    void fail(Throwable exception) {
+        if (!failure.compareAndSet(null, exception) && failure.get() != exception)
+            failure.get().addSuppressed(exception);
+        while (tilesLeft.getCount() > 0)
+            tilesLeft.countDown();
+    }
+
+    /**
+     * Waits until all the tiles are finished, including the tiles that other
+     * threads are still processing
+     *
+     * @throws RuntimeException      the exception of a thread that failed (an error is thrown as it is)
+     * @throws IllegalStateException if the waiting thread is interrupted
+     */
+    void awaitTiles() {
+        try {
+            tilesLeft.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the other threads stop taking tiles, the image is not complete
+            IllegalStateException interrupted = new IllegalStateException("The render was interrupted", e);
+            fail(interrupted);
+            throw interrupted;
+        }
+
+        Throwable exception = failure.get();
+        if (exception instanceof RuntimeException runtimeException) throw runtimeException;
+        if (exception instanceof Error error) throw error;
+        if (exception != null) throw new IllegalStateException("The render failed", exception);
+    }
+}
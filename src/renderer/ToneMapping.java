@@ -0,0 +1,44 @@
+package renderer;
+
+/**
+ * Tone mapping operators, that map the unbounded (high dynamic range) color components
+ * of the rendered image to the displayable range, before they are quantized to 8 bits.<br/>
+ * The components are on the scale of the colors of the project, where 255 is the full
+ * intensity of the display.
+ */
+public enum ToneMapping {
+    /** No mapping - any component above the full intensity is clipped (the default) */
+    CLAMP {
+        @Override
+        double map(double value) {
+            return value;
+        }
+    },
+    /** Reinhard operator x/(1+x) - compresses the highlights smoothly and never clips */
+    REINHARD {
+        @Override
+        double map(double value) {
+            double x = value / FULL_INTENSITY;
+            return FULL_INTENSITY * x / (1 + x);
+        }
+    },
+    /** Filmic curve (the ACES approximation of Narkowicz) - keeps the contrast of the mid tones */
+    ACES {
+        @Override
+        double map(double value) {
+            double x = value / FULL_INTENSITY;
+            return FULL_INTENSITY * (x * (2.51 * x + 0.03)) / (x * (2.43 * x + 0.59) + 0.14);
+        }
+    };
+
+    /** The full intensity of a displayed color component */
+    private static final double FULL_INTENSITY = 255;
+
+    /**
+     * Maps a color component
+     *
+     * @param value the (exposed) component
+     * @return the mapped component, to be clipped to the full intensity and quantized
+     */
+    abstract double map(double value);
+}
@@ -3,7 +3,7 @@ import primitives.*;
 import lighting.*;
 import geometries.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Color.BLACK;
@@ -28,7 +28,13 @@ public class Scene {
     public Geometries geometries;
 
     /** The light sources in the scene. */
-    public List<LightSource> lights = new LinkedList<>();
+    public List<LightSource> lights = new ArrayList<>();
+
+    /** Whether the scene is rendered from its compiled geometries. */
+    private boolean compile = false;
+
+    /** The compiled geometries of the scene, null until they are needed. */
+    private volatile CompiledGeometries compiled = null;
 
     /**
      * Constructs a new Scene object with the provided builder.
@@ -52,6 +58,45 @@ public class Scene {
         return this;
     }
 
+    /**
+     * Compiles the geometries of the scene for rendering - into a hierarchy that is stored
+     * as flat arrays of primitive coordinates, see {@link CompiledGeometries}. The geometries
+     * of the scene stay as they are, and the renderer traces the compiled ones. Geometries that
+     * are added or changed later are compiled again before they are rendered.
+     * @return The scene itself.
+     */
+    public Scene compile() {
+        this.compile = true;
+        this.compiled = new CompiledGeometries(geometries);
+        return this;
+    }
+
+    /**
+     * Returns the geometries to render - the compiled geometries if the scene is compiled,
+     * and the geometries of the scene otherwise. The geometries are compiled again if they
+     * have been changed since they were compiled.
+     * @return The geometries to render.
+     */
+    public Intersectable getRenderGeometries() {
+        if (!compile)
+            return geometries;
+        CompiledGeometries current = compiled;
+        return current != null && current.isCompiledFrom(geometries) ? current : recompile();
+    }
+
+    /**
+     * Compiles the geometries of the scene again, once for all the threads that need them.
+     * @return The compiled geometries.
+     */
+    private synchronized CompiledGeometries recompile() {
+        CompiledGeometries current = compiled;
+        if (current == null || !current.isCompiledFrom(geometries)) {
+            current = new CompiledGeometries(geometries);
+            compiled = current;
+        }
+        return current;
+    }
+
     public Scene setAmbientLight(AmbientLight ambientLight) {
         this.ambientLight = ambientLight;
         return this;
@@ -62,7 +107,7 @@ public class Scene {
         private Color background = BLACK;
         private AmbientLight ambientLight = AmbientLight.NONE;
         private Geometries geometries = new Geometries();
-        private List<LightSource> lights = new LinkedList<>();
+        private List<LightSource> lights = new ArrayList<>();
 
         /**
          * Sets the background color of the scene.
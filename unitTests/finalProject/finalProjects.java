@@ -32,50 +32,50 @@ public class finalProjects {
         scene.geometries.add(
 
                 new Sphere(12d, new Point(0, -70, -295)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.7).setKs(0.3).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.7).withKs(0.3).withShininess(30)),
                 new Sphere(12d, new Point(0, -70, -196)).setEmission(new Color(BLUE)) //
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-20, -70, -283)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(20, -70, -283)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-37, -70, -265)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(37, -70, -265)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-52, -70, -246)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(52, -70, -246)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-62, -70, -224)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(62, -70, -224)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-62, -70, -200)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(62, -70, -200)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-55, -70, -177)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-15, -70, -178)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(15, -70, -178)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(55, -70, -177)).setEmission(new Color(WHITE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(35, -70, -165)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 new Sphere(12d, new Point(-35, -70, -165)).setEmission(new Color(BLUE))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.7).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.7).withShininess(30)),
                 //מראות
                 new Triangle(new Point(150, -200, -300), new Point(-270, -400, -350),
                         new Point(150, -200, 200)) //
                         .setEmission(new Color(20, 20, 20)) //
-                        .setMaterial(new Material().setKr(0.2)),
+                        .setMaterial(new Material().withKr(0.2)),
                 new Triangle(new Point(-160, -150, -300), new Point(270, -400, -350),
                         new Point(-160, -150, 200)) //
                         .setEmission(new Color(20, 20, 20)) //
-                        .setMaterial(new Material().setKr(0.2)),
+                        .setMaterial(new Material().withKr(0.2)),
 //
                 //front
                 new Polygon(
@@ -99,7 +99,7 @@ public class finalProjects {
                         new Point(-28, -160, -220),
                         new Point(18, -160, -220),
                         new Point(23, -100, -230)
-                ).setEmission(new Color(0, 0, 90)).setMaterial(new Material().setKr(0.2)),
+                ).setEmission(new Color(0, 0, 90)).setMaterial(new Material().withKr(0.2)),
 
                 //Bottom Rectangle:
                 new Polygon(
@@ -140,16 +140,16 @@ public class finalProjects {
                 ).setEmission(new Color(0, 0, 255)),
                 //מגן דוד
                 new Triangle(new Point(0, -95, -236), new Point(-7, -95, -248), new Point(7, -95, -248))
-                        .setEmission(new Color(BLUE)).setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //משולש ישר
+                        .setEmission(new Color(BLUE)).setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //משולש ישר
                 new Triangle(new Point(0, -95, -252), new Point(-7, -95, -240), new Point(7, -95, -240))
-                        .setEmission(new Color(BLUE)).setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),//משולש הפוך
+                        .setEmission(new Color(BLUE)).setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)),//משולש הפוך
                 // משטח
                 new Polygon(
                         new Point(-150, -150, -310),
                         new Point(150, -150, -310),
                         new Point(150, 70, -325),
                         new Point(-150, 70, -325)
-                ).setEmission(new Color(100, 100, 100)).setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(0)),
+                ).setEmission(new Color(100, 100, 100)).setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(0)),
                 new Polygon( //פס
                         new Point(-15, -130, -223),
                         new Point(-15, -130, -225),
@@ -169,6 +169,8 @@ public class finalProjects {
                         .setKl(4E-4).setKq(2E-6));
 
 
+        scene.geometries.buildBVH();
+
         ImageWriter imageWriter = new ImageWriter("heart", 600, 600);
         camera.setImageWriter(imageWriter)
                 .setRayTracer(new RayTracerBasic(scene))
@@ -196,9 +198,9 @@ public class finalProjects {
                         new Point(-200, -70, 600)
                 ).setEmission(new Color(100, 100, 100))
                         .setMaterial(new Material()
-                                .setKd(0.5)
-                                .setKs(0.5)
-                                .setShininess(0)),
+                                .withKd(0.5)
+                                .withKs(0.5)
+                                .withShininess(0)),
                 new Polygon( //back wall
                         new Point(-200, -70, -100.2),
                         new Point(200, -70, -100.2),
@@ -206,9 +208,9 @@ public class finalProjects {
                         new Point(-200, 220, -100.2)
                 ).setEmission(new Color(100, 0, 0))
                         .setMaterial(new Material()
-                                .setKd(0.5)
-                                .setKs(0.5)
-                                .setShininess(0)),
+                                .withKd(0.5)
+                                .withKs(0.5)
+                                .withShininess(0)),
                 new Polygon(//white picture
                         new Point(-100, 80, -99.9),
                         new Point(-10, 80, -99.9),
@@ -291,27 +293,27 @@ public class finalProjects {
                 new Sphere(3d, new Point(27, -67, -18))//leg of counter
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(27, -67, -93))//leg of counter
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(-117, -67, -93))//leg of counter
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(-117, -67, -18))//leg of counter
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Polygon(//frame of mirror
                         new Point(75, -40, -98),
                         new Point(150, -40, -98),
@@ -326,7 +328,7 @@ public class finalProjects {
                         new Point(80, 85, -97))
                         .setEmission(new Color(140,140,140))
                         .setMaterial(new Material()
-                                .setKr(0.7)),
+                                .withKr(0.7)),
 
                 new Cuboid(new Point(-180, 100, -80), 5, 160, 5, new Color(BLACK)),//stick of lamp
 
@@ -334,9 +336,9 @@ public class finalProjects {
 
                 new Sphere(20d, new Point(-177, 120, -80))  //lamp
                         .setMaterial((new Material()
-                                .setKd(0.5)
-                                .setKs(0.2)
-                                .setKt(0.7))),
+                                .withKd(0.5)
+                                .withKs(0.2)
+                                .withKt(0.7))),
 
                 //cuboids
                 new Cuboid(new Point(-90, -60, 130), 10, 10, 10, new Color(0, 255, 100)),
@@ -349,96 +351,96 @@ public class finalProjects {
                 new Sphere(12d, new Point(40, -58, 200))//red ball
                         .setEmission(new Color(RED))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.7)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.7)
+                                .withShininess(30)),
                 new Sphere(8d, new Point(90, -62, 120))//pink ball
                         .setEmission(new Color(PINK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.7)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.7)
+                                .withShininess(30)),
                 new Sphere(8d, new Point(-20, -62, 90))//yellow ball
                         .setEmission(new Color(YELLOW))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.7)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.7)
+                                .withShininess(30)),
 
                 new Cuboid(new Point(100, -50, 30), 60, 20, 50, new Color(120,120,120)),//little chair
 
                 new Sphere(20, new Point(130, -28, 20))//body
                         .setEmission(new Color(150, 75, 0))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(90)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(90)),
                 new Sphere(15d, new Point(130, 2, 22))//head
                         .setEmission(new Color(150, 75, 0))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(90)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(90)),
                 new Sphere(7d, new Point(113, -18, 23))//left arm
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(7d, new Point(146, -18.3, 24))//right arm
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(7d, new Point(120, -45, 30))//left leg
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(7d, new Point(140, -45, 30))//right leg
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(6d, new Point(120, 12, 25))//left ear
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(6d, new Point(139, 12, 25))//right ear
                         .setEmission(new Color(92, 64, 51))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(133, 6, 37))//right eye
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(123, 6, 37))//left eye
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3.5d, new Point(128, -3, 37))//nose
                         .setEmission(new Color(BLACK))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30)),
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30)),
                 new Sphere(3d, new Point(128, -4, 37))//mouse
                         .setEmission(new Color(255,0,0))
                         .setMaterial(new Material()
-                                .setKd(0.2)
-                                .setKs(0.3)
-                                .setShininess(30))
+                                .withKd(0.2)
+                                .withKs(0.3)
+                                .withShininess(30))
         );
 
 
@@ -452,6 +454,8 @@ public class finalProjects {
         scene.lights.add(new PointLight(new Color(WHITE), new Point(-177, 120, -80)).setKl(0.001).setKq(0.00015));
 
 
+        scene.geometries.buildBVH();
+
         ImageWriter imageWriter = new ImageWriter("final project diagonally", 3000, 3000);
         camera.setImageWriter(imageWriter)
                 .setRayTracer(new RayTracerBasic(scene))
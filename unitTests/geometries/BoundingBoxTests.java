@@ -0,0 +1,103 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Testing {@link BoundingBox} and the bounding boxes of the geometries */
+class BoundingBoxTests {
+
+    /** Test method for {@link geometries.BoundingBox#intersects(Ray, double)}. */
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(0, 0, 0, 1, 1, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: Ray crosses the box");
+        // TC02: Ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 2, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: Ray misses the box");
+        // TC03: Ray starts after the box
+        assertFalse(box.intersects(new Ray(new Point(2, 0.5, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: Box is behind the ray");
+        // TC04: Ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(0.5, 0.5, 0.5), new Vector(1, 1, 1)), Double.POSITIVE_INFINITY),
+                "ERROR: Ray starts inside the box");
+        // TC05: Box is farther than the maximum distance
+        assertFalse(box.intersects(new Ray(new Point(-3, 0.5, 0.5), new Vector(1, 0, 0)), 2),
+                "ERROR: Box is farther than the maximum distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray is parallel to a face and lies on it
+        assertTrue(box.intersects(new Ray(new Point(-1, 0, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: Ray lies on a face of the box");
+        // TC12: Flat box (of a polygon) crossed by a ray
+        BoundingBox flat = new BoundingBox(0, 0, 1, 1, 1, 1);
+        assertTrue(flat.intersects(new Ray(new Point(0.5, 0.5, 3), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY),
+                "ERROR: Ray crosses a flat box");
+    }
+
+    /** Test method for {@link geometries.Intersectable#getBoundingBox()}. */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Sphere box
+        BoundingBox box = new Sphere(2, new Point(1, 1, 1)).getBoundingBox();
+        assertEquals(new Point(-1, -1, -1), box.getMin(), "ERROR: Wrong sphere box");
+        assertEquals(new Point(3, 3, 3), box.getMax(), "ERROR: Wrong sphere box");
+
+        // TC02: Triangle box
+        box = new Triangle(new Point(0, 0, 1), new Point(2, 0, 1), new Point(0, 3, 1)).getBoundingBox();
+        assertEquals(new Point(0, 0, 1), box.getMin(), "ERROR: Wrong triangle box");
+        assertEquals(new Point(2, 3, 1), box.getMax(), "ERROR: Wrong triangle box");
+
+        // TC03: Cylinder box along the z axis
+        box = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 5).getBoundingBox();
+        assertEquals(new Point(-1, -1, 0), box.getMin(), "ERROR: Wrong cylinder box");
+        assertEquals(new Point(1, 1, 5), box.getMax(), "ERROR: Wrong cylinder box");
+
+        // TC04: Geometries box merges the boxes of the children
+        Geometries geometries = new Geometries(new Sphere(1, new Point(0, 0, 0)), new Sphere(1, new Point(5, 0, 0)));
+        box = geometries.getBoundingBox();
+        assertEquals(new Point(-1, -1, -1), box.getMin(), "ERROR: Wrong geometries box");
+        assertEquals(new Point(6, 1, 1), box.getMax(), "ERROR: Wrong geometries box");
+
+        // TC05: Geometries box is updated after adding a geometry
+        geometries.add(new Sphere(1, new Point(0, 9, 0)));
+        assertEquals(new Point(6, 10, 1), geometries.getBoundingBox().getMax(), "ERROR: Geometries box is not updated");
+
+        // TC06: Geometries box is updated after adding a geometry to a nested collection
+        Geometries inner = new Geometries(new Sphere(1, new Point(0, 0, 0)));
+        Geometries outer = new Geometries(inner);
+        Ray ray = new Ray(new Point(20, 0, 10), new Vector(0, 0, -1));
+        assertNull(outer.findClosestIntersection(ray), "ERROR: Wrong intersection before the change");
+        Sphere added = new Sphere(1, new Point(20, 0, 0));
+        inner.add(added);
+        assertEquals(new Point(21, 1, 1), outer.getBoundingBox().getMax(), "ERROR: Outer box is not updated");
+        assertEquals(List.of(new Point(20, 0, -1), new Point(20, 0, 1)), outer.findIntersections(ray),
+                "ERROR: Intersections of the nested change are lost");
+        assertEquals(added, outer.findClosestIntersection(ray).geometry,
+                "ERROR: Closest intersection of the nested change is lost");
+        // TC07: A change of a collection does not drop the cached box of a collection that does not contain it
+        Geometries unrelated = new Geometries(new Sphere(1, new Point(0, 0, 0)), new Sphere(1, new Point(5, 0, 0)));
+        BoundingBox unrelatedBox = unrelated.getBoundingBox();
+        BoundingBox outerBox = outer.getBoundingBox();
+        inner.add(new Sphere(1, new Point(-20, 0, 0)));
+        assertSame(unrelatedBox, unrelated.getBoundingBox(), "ERROR: Box of an unchanged collection is recalculated");
+        assertNotSame(outerBox, outer.getBoundingBox(), "ERROR: Box of the containing collection is not updated");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Infinite geometries are unbounded
+        assertFalse(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).isBounded(), "ERROR: Plane must be unbounded");
+        assertFalse(new Tube(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1))).isBounded(),
+                "ERROR: Tube must be unbounded");
+        // TC12: Geometries with an unbounded child are unbounded
+        geometries.add(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertFalse(geometries.isBounded(), "ERROR: Geometries with a plane must be unbounded");
+    }
+}
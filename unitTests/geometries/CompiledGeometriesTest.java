@@ -0,0 +1,65 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Testing {@link CompiledGeometries} */
+class CompiledGeometriesTest {
+
+    /** Test method for {@link geometries.Intersectable#findClosestIntersection(Ray)}. */
+    @Test
+    void testFindClosestIntersection() {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -50), new Vector(0, 0, 1)));
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                geometries.add(new Geometries(new Sphere(3, new Point(i * 10, j * 10, 0)),
+                        new Triangle(new Point(i * 10, j * 10, 10), new Point(i * 10 + 5, j * 10, 10),
+                                new Point(i * 10, j * 10 + 5, 10)),
+                        new Polygon(new Point(i * 10 + 4, j * 10 + 4, 5), new Point(i * 10 + 8, j * 10 + 4, 5),
+                                new Point(i * 10 + 8, j * 10 + 8, 5), new Point(i * 10 + 4, j * 10 + 8, 5))));
+        CompiledGeometries compiled = new CompiledGeometries(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The compiled geometries find the same closest intersections as the original ones
+        for (int i = 0; i < 400; ++i) {
+            Ray ray = new Ray(new Point(i % 20 * 5 - 3, i / 20 * 5 - 2, 40), new Vector(0.1, 0.2, -1));
+            assertEquals(geometries.findClosestIntersection(ray), compiled.findClosestIntersection(ray),
+                    "ERROR: Compiled geometries find a wrong closest intersection");
+        }
+        // TC02: The intersections carry the materials and the emissions of the geometries
+        Sphere sphere = new Sphere(3, new Point(200, 0, 0));
+        sphere.setEmission(new Color(10, 20, 30)).setMaterial(new Material().withKd(0.5));
+        Geometries singleGeometries = new Geometries(sphere);
+        CompiledGeometries single = new CompiledGeometries(singleGeometries);
+        GeoPoint hit = single.findClosestIntersection(new Ray(new Point(200, 0, 40), new Vector(0, 0, -1)));
+        assertSame(sphere.getMaterial(), hit.getMaterial(), "ERROR: Wrong material of the compiled intersection");
+        assertSame(sphere.getEmission(), hit.getEmission(), "ERROR: Wrong emission of the compiled intersection");
+        // TC03: The compiled geometries are up to date until the original geometries are changed
+        assertTrue(single.isCompiledFrom(singleGeometries), "ERROR: Compiled geometries must be up to date");
+        assertFalse(single.isCompiledFrom(new Geometries()), "ERROR: Compiled geometries of other geometries");
+        sphere.setMaterial(new Material().withKd(0.6));
+        assertFalse(single.isCompiledFrom(singleGeometries), "ERROR: Compiled geometries must follow the materials");
+        assertTrue(compiled.isCompiledFrom(geometries), "ERROR: Changes of other geometries must be ignored");
+        single = new CompiledGeometries(singleGeometries);
+        singleGeometries.add(new Sphere(1, new Point(0, 0, 0)));
+        assertFalse(single.isCompiledFrom(singleGeometries), "ERROR: Compiled geometries must follow additions");
+        Geometries nested = new Geometries(new Sphere(1, new Point(0, 0, 0)));
+        Geometries outer = new Geometries(nested);
+        single = new CompiledGeometries(outer);
+        assertTrue(single.isCompiledFrom(outer), "ERROR: Compiled geometries must be up to date");
+        nested.add(new Sphere(1, new Point(5, 0, 0)));
+        assertFalse(single.isCompiledFrom(outer), "ERROR: Compiled geometries must follow nested additions");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray that misses the hierarchy hits only the unbounded plane
+        Ray ray = new Ray(new Point(-100, -100, 40), new Vector(0, 0, -1));
+        assertEquals(new Point(-100, -100, -50), compiled.findClosestIntersection(ray).point,
+                "ERROR: Compiled geometries must keep the unbounded geometries");
+        // TC12: Geometries without any bounded geometry
+        assertNull(new CompiledGeometries(new Geometries()).findClosestIntersection(ray),
+                "ERROR: Empty compiled geometries must have no intersections");
+    }
+}
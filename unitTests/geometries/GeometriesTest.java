@@ -3,6 +3,8 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /** Testing {@link Geometries} */
@@ -44,4 +46,139 @@ class GeometriesTest {
         assertNull(geometries.findIntersections(ray), "ERROR: Wrong number of points intersects the geometries " +
                 "when the geometries are empty");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link geometries.Geometries#buildBVH()}. */
+    @Test
+    void testBuildBVH() {
+        Geometries linear = new Geometries();
+        Geometries bvh = new Geometries();
+        Plane plane = new Plane(new Point(0, 0, -50), new Vector(0, 0, 1));
+        linear.add(plane);
+        bvh.add(plane);
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j) {
+                Sphere sphere = new Sphere(3, new Point(i * 10, j * 10, 0));
+                Triangle triangle = new Triangle(new Point(i * 10, j * 10, 10), new Point(i * 10 + 5, j * 10, 10),
+                        new Point(i * 10, j * 10 + 5, 10));
+                linear.add(sphere, triangle);
+                bvh.add(new Geometries(sphere, triangle));
+            }
+        bvh.buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same intersections are found with and without the hierarchy
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(i % 20 * 5 - 3, i / 20 * 11 - 2, 40), new Vector(0.1, 0.2, -1));
+            List<Point> expected = linear.findIntersections(ray);
+            List<Point> result = bvh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "ERROR: BVH finds a wrong number of intersections");
+            assertEquals(linear.findClosestIntersection(ray).point, bvh.findClosestIntersection(ray).point,
+                    "ERROR: BVH finds a wrong closest intersection");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray that misses every bounding box hits only the unbounded plane
+        Ray ray = new Ray(new Point(-100, -100, 40), new Vector(0, 0, -1));
+        assertEquals(1, bvh.findIntersections(ray).size(), "ERROR: BVH must keep the unbounded geometries");
+
+        // TC12: Equally close geometries in one leaf - the later one wins, as in the linear search
+        Sphere first = new Sphere(3, new Point(0, 0, 0));
+        Sphere second = new Sphere(3, new Point(0, 0, 0));
+        Triangle third = new Triangle(new Point(-5, -5, 3), new Point(5, -5, 3), new Point(0, 5, 3));
+        ray = new Ray(new Point(0, 0, 40), new Vector(0, 0, -1));
+        assertSame(third, new Geometries(first, second, third).buildBVH().findClosestIntersection(ray).geometry,
+                "ERROR: BVH leaf breaks a tie between a sphere and a triangle wrongly");
+        assertSame(second, new Geometries(third, first, second).buildBVH().findClosestIntersection(ray).geometry,
+                "ERROR: BVH leaf breaks a tie between spheres wrongly");
+    }
+
+    /** Test method for {@link geometries.Intersectable#findClosestIntersection(Ray, double)}. */
+    @Test
+    void testFindClosestIntersection() {
+        Sphere near = new Sphere(1, new Point(0, 0, -3));
+        Sphere far = new Sphere(1, new Point(0, 0, -10));
+        Plane plane = new Plane(new Point(0, 0, -20), new Vector(0, 0, 1));
+        Geometries geometries = new Geometries(plane, far, near);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest of all the intersections is found
+        assertEquals(new Point(0, 0, -2), geometries.findClosestIntersection(ray).point,
+                "ERROR: Wrong closest intersection");
+        // TC02: The closest intersection is limited by the maximum distance
+        assertNull(geometries.findClosestIntersection(ray, 1.5), "ERROR: Intersection beyond the maximum distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The closest intersection is exactly at the maximum distance
+        assertEquals(near, geometries.findClosestIntersection(ray, 2).geometry,
+                "ERROR: Intersection at the maximum distance must be found");
+        // TC12: Ray starts inside a sphere
+        assertEquals(new Point(0, 0, -4), geometries.findClosestIntersection(
+                new Ray(new Point(0, 0, -3.5), new Vector(0, 0, -1))).point, "ERROR: Wrong closest intersection");
+    }
+
+    /** Test method for {@link geometries.Geometries#findClosestIntersections(RayPacket)}. */
+    @Test
+    void testFindClosestIntersections() {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -50), new Vector(0, 0, 1)),
+                new Polygon(new Point(-20, -20, -40), new Point(20, -20, -40), new Point(20, 20, -40),
+                        new Point(-20, 20, -40)));
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                geometries.add(new Sphere(3, new Point(i * 10 - 45, j * 10 - 45, -20)),
+                        new Triangle(new Point(i * 10 - 45, j * 10 - 45, -10), new Point(i * 10 - 40, j * 10 - 45, -10),
+                                new Point(i * 10 - 45, j * 10 - 40, -10)));
+        geometries.buildBVH();
+        RayPacket packet = new RayPacket(64);
+        Ray[] rays = new Ray[64];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The packet finds the same closest intersections as the rays one by one
+        for (int block = 0; block < 16; ++block) {
+            for (int i = 0; i < 64; ++i)
+                rays[i] = new Ray(Point.ZERO,
+                        new Vector((block % 4 * 8 + i % 8) * 0.05 - 0.8, (block / 4 * 8 + i / 8) * 0.05 - 0.8, -1));
+            packet.load(rays, 64);
+            geometries.findClosestIntersections(packet);
+            for (int i = 0; i < 64; ++i)
+                assertEquals(geometries.findClosestIntersection(rays[i]), packet.getClosest(i),
+                        "ERROR: Packet finds a wrong closest intersection");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A partial packet that misses everything
+        rays[0] = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        packet.load(rays, 1);
+        geometries.findClosestIntersections(packet);
+        assertEquals(1, packet.size(), "ERROR: Wrong size of a partial packet");
+        assertNull(packet.getClosest(0), "ERROR: Packet finds an intersection of a ray that misses");
+    }
+
+    /** Test method for {@link geometries.Intersectable#findTransparency(Ray, double, double)}. */
+    @Test
+    void testFindTransparency() {
+        Sphere glass = (Sphere) new Sphere(1, new Point(0, 0, -3)).setMaterial(new Material().withKt(0.5));
+        Triangle veil = (Triangle) new Triangle(new Point(-1, -1, -6), new Point(1, -1, -6), new Point(0, 1, -6))
+                .setMaterial(new Material().withKt(0.8));
+        Sphere wall = new Sphere(1, new Point(0, 0, -10));
+        Geometries geometries = new Geometries(glass, veil, wall);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The light passes twice through the glass sphere and once through the triangle
+        assertEquals(new Double3(0.2), geometries.findTransparency(ray, 7, 0.001),
+                "ERROR: Wrong transparency of transparent occluders");
+        // TC02: An opaque occluder blocks the light
+        assertSame(Double3.ZERO, geometries.findTransparency(ray, 20, 0.001),
+                "ERROR: Opaque occluder must block the light");
+        // TC03: Nothing between the point and the light
+        assertSame(Double3.ONE, geometries.findTransparency(new Ray(new Point(5, 5, 0), new Vector(0, 0, -1)), 20, 0.001),
+                "ERROR: Light must pass when there is no occluder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The product falls below the minimum
+        assertSame(Double3.ZERO, geometries.findTransparency(ray, 7, 0.3),
+                "ERROR: Transparency below the minimum must block the light");
+    }
+}
@@ -0,0 +1,73 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Testing {@link LeafKernel} */
+class LeafKernelTest {
+
+    /** Test method for {@link geometries.LeafKernel#findClosestIntersection(Ray, double, int)}. */
+    @Test
+    void testFindClosestIntersection() {
+        // a leaf of spheres and triangles that do not fill the lanes, with equally close duplicates
+        List<Intersectable> leaf = new ArrayList<>();
+        for (int i = 0; i < 11; ++i)
+            leaf.add(new Sphere(1 + i % 3, new Point(i * 2, i % 4, -10 - i)));
+        leaf.add(new Sphere(2, new Point(20, 2, -20)));
+        for (int i = 0; i < 13; ++i)
+            leaf.add(new Triangle(new Point(i * 2 - 3, -3, -8 - i % 5), new Point(i * 2 + 3, -3, -8 - i % 5),
+                    new Point(i * 2, 4, -8 - i % 5)));
+        leaf.add(new Triangle(new Point(21, -3, -10), new Point(27, -3, -10), new Point(24, 4, -10)));
+        leaf.add(new Polygon(new Point(-5, -5, -30), new Point(30, -5, -30), new Point(30, 10, -30),
+                new Point(-5, 10, -30)));
+        Map<Intersectable, Integer> ordinals = new IdentityHashMap<>();
+        for (Intersectable geometry : leaf)
+            ordinals.put(geometry, ordinals.size());
+        List<List<Intersectable>> leaves = List.of(List.of(), leaf);
+
+        LeafKernel scalar = new LeafKernel(leaves, ordinals);
+        LeafKernel padded = new LeafKernel(leaves, ordinals, 4);
+        LeafKernel kernel = LeafKernel.of(leaves, ordinals);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The kernel is vectorized exactly when the vector API is available
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), LeafKernel.LANES > 1,
+                "ERROR: The vectorized kernel must be used with the vector API");
+        // TC02: The kernels find the same closest intersections, up to any maximum distance
+        for (int i = 0; i < 2000; ++i) {
+            Ray ray = new Ray(new Point(i % 40 * 0.7 - 4, i / 40 % 10 * 0.9 - 4, 5),
+                    new Vector(i % 7 * 0.01 - 0.03, i % 3 * 0.02 - 0.02, -1));
+            double maxDistance = i % 5 == 0 ? 16 : Double.POSITIVE_INFINITY;
+            GeoPoint expected = scalar.findClosestIntersection(ray, maxDistance, 1);
+            assertEquals(expected, padded.findClosestIntersection(ray, maxDistance, 1),
+                    "ERROR: The padded kernel finds a wrong closest intersection");
+            assertEquals(expected, kernel.findClosestIntersection(ray, maxDistance, 1),
+                    "ERROR: The kernel finds a wrong closest intersection");
+        }
+        // TC03: The other geometries of a leaf are left for the search
+        assertEquals(List.of(leaf.get(leaf.size() - 1)), kernel.others(1), "ERROR: Wrong other geometries");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The later of equally close geometries wins
+        Ray ray = new Ray(new Point(24, 0, 5), new Vector(0, 0, -1));
+        assertSame(leaf.get(25), kernel.findClosestIntersection(ray, Double.POSITIVE_INFINITY, 1).geometry,
+                "ERROR: The later of equally close triangles must win");
+        ray = new Ray(new Point(40, 2, -20), new Vector(-1, 0, 0));
+        assertSame(leaf.get(11), kernel.findClosestIntersection(ray, Double.POSITIVE_INFINITY, 1).geometry,
+                "ERROR: The later of equally close spheres must win");
+        ray = new Ray(new Point(4, 0, 5), new Vector(0, 0, 1));
+        assertNull(kernel.findClosestIntersection(ray, Double.POSITIVE_INFINITY, 1),
+                "ERROR: A ray away from the leaf must not intersect it");
+        // TC12: An empty leaf
+        assertNull(kernel.findClosestIntersection(ray, Double.POSITIVE_INFINITY, 0),
+                "ERROR: An empty leaf must not be intersected");
+    }
+}
@@ -105,6 +105,28 @@ public class PolygonTests {
         result = poly.findIntersections(new Ray(p, new Vector(7d, 7d, -4d)));
         assertNull(result, "Outside against vertex");
 
+        // TC04: Inside a polygon with the opposite orientation in a plane that is projected on y-z
+        Polygon slanted = new Polygon(
+                new Point(0, 0, 0),
+                new Point(1d, 0, 4d),
+                new Point(1d, 4d, 4d),
+                new Point(0, 4d, 0)
+        );
+        result = slanted.findIntersections(new Ray(new Point(4d, 2d, 2d), new Vector(-1d, 0, 0)));
+        assertEquals(List.of(new Point(0.5, 2d, 2d)), result, "Inside projected polygon");
+
+        // TC05: Outside a polygon in a plane that is projected on y-z
+        result = slanted.findIntersections(new Ray(new Point(4d, 5d, 2d), new Vector(-1d, 0, 0)));
+        assertNull(result, "Outside projected polygon");
+
+        // TC06: A polygon of 3 vertices (not a Triangle) is intersected as a polygon
+        Polygon three = new Polygon(new Point(1d, 0, 0), new Point(4d, 0, 0), new Point(1d, 4d, 0));
+        result = three.findIntersections(new Ray(p, new Vector(2d, 1d, -4d)));
+        assertEquals(List.of(new Point(2d, 1d, 0)), result, "Inside a polygon of 3 vertices");
+        assertEquals(new Point(2d, 1d, 0), three.findClosestIntersection(new Ray(p, new Vector(2d, 1d, -4d))).point,
+                "Closest intersection of a polygon of 3 vertices");
+        assertNull(three.findIntersections(new Ray(p, new Vector(4d, 4d, -4d))), "Outside a polygon of 3 vertices");
+
         // =============== Boundary Values Tests ==================
         // TC11: On edge
         result = poly.findIntersections(new Ray(p, new Vector(4d, 2, -4d)));
@@ -27,6 +27,11 @@ class SphereTests {
         assertEquals(result, new Vector(1, 0, 0), "Sphere's Normal illegal");
         // ensure |result| = 1 , Verify that the length of the computed normal vector is equal to 1
         assertEquals(1, result.length(), 0.00000001, "Triangle's normal is not a unit vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: There is no normal at the center
+        assertThrows(IllegalArgumentException.class, () -> sphere.getNormal(new Point(0, 0, 0)),
+                "Sphere's normal at the center must throw exception");
     }
 
     /** Test method for {@link geometries.Sphere#findIntersections(primitives.Ray)}. */
@@ -132,4 +137,28 @@ class SphereTests {
         assertNull(sphere.findIntersections(new Ray(new Point(3, 0, 0), new Vector(0, 0, 1))),
                 "Ray's line is outside, ray is orthogonal to ray start to sphere's center line");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link geometries.Intersectable#findClosestIntersection(Ray, double)}. */
+    @Test
+    public void testFindClosestIntersection() {
+        Sphere sphere = new Sphere(1d, new Point(1, 0, 0));
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the sphere, the nearer point is the closest one
+        assertEquals(new Point(0, 0, 0), sphere.findClosestIntersection(ray).point, "Wrong closest point");
+
+        // TC02: The sphere is beyond the maximum distance
+        assertNull(sphere.findClosestIntersection(ray, 0.5), "Sphere beyond the maximum distance");
+
+        // TC03: Ray starts inside the sphere, the farther point is the only one
+        assertEquals(new Point(2, 0, 0),
+                sphere.findClosestIntersection(new Ray(new Point(0.5, 0, 0), new Vector(1, 0, 0))).point,
+                "Wrong closest point from inside");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A far sphere is hit precisely
+        Sphere far = new Sphere(1d, new Point(1e6, 0, 0));
+        assertEquals(new Point(1e6 - 1, 0, 0), far.findClosestIntersection(ray).point, "Wrong point of a far sphere");
+    }
+}
@@ -84,4 +84,36 @@ class TriangleTest {
         assertNull(triangle.findIntersections(ray),"ERROR: Wrong number of points intersects the sphere " +
                 "when the point on edge's continuation");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link geometries.Triangle#intersect(Ray, double, double[])}. */
+    @Test
+    void testIntersect() {
+        Triangle triangle = new Triangle(new Point(0,-1,2), new Point(3,3,2), new Point(-3,3,2));
+        double[] barycentrics = new double[2];
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: the distance and the barycentric coordinates of the point (1,2,2) inside the triangle
+        Ray ray = new Ray(new Point(2,0,0), new Vector(-1, 2,2));
+        assertEquals(3, triangle.intersect(ray, Double.POSITIVE_INFINITY, barycentrics), 1e-10,
+                "ERROR: Wrong distance of the intersection");
+        assertEquals(13d / 24, barycentrics[0], 1e-10, "ERROR: Wrong barycentric coordinate u");
+        assertEquals(5d / 24, barycentrics[1], 1e-10, "ERROR: Wrong barycentric coordinate v");
+
+        //TC02: the point is beyond the maximum distance
+        assertTrue(Double.isNaN(triangle.intersect(ray, 2, null)),
+                "ERROR: Intersection beyond the maximum distance");
+
+        //TC03: the triangle is behind the ray
+        ray = new Ray(new Point(2,0,0), new Vector(1, -2,-2));
+        assertTrue(Double.isNaN(triangle.intersect(ray, Double.POSITIVE_INFINITY, null)),
+                "ERROR: Intersection behind the ray");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11: the ray is parallel to the triangle
+        ray = new Ray(new Point(0,0,0), new Vector(1, 1,0));
+        assertTrue(Double.isNaN(triangle.intersect(ray, Double.POSITIVE_INFINITY, null)),
+                "ERROR: Intersection of a parallel ray");
+    }
+}
@@ -9,9 +9,18 @@ import primitives.*;
 import renderer.Camera;
 import renderer.ImageWriter;
 import renderer.RayTracerBasic;
+import renderer.SamplePattern;
 import scene.Scene;
 
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static java.awt.Color.BLACK;
 import static java.awt.Color.BLUE;
 
@@ -58,4 +67,347 @@ public class improvmentsTests {
         .setMultiThreading(3);
         camera.writeToImage();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void multiThreadingTilesTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setImageWriter(new ImageWriter("basic test with tiles", 500, 500))
+                .setRayTracer(new RayTracerBasic(scene))
+                .setAntiAliasingFactor(3)
+                .setMultiThreading(3, 16);
+
+        camera.renderImage();
+        camera.writeToImage();
+    }
+
+    @Test
+    public void forkJoinTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setRayTracer(new RayTracerBasic(scene))
+                .setAntiAliasingFactor(3)
+                .setPrintInterval(0);
+        PixelRecorder reference = new PixelRecorder("basic test with fork-join", 500, 500);
+        camera.setImageWriter(reference).renderImage();
+
+        // the camera configuration is kept, so every mode renders the whole image again
+        PixelRecorder forkJoin = new PixelRecorder("basic test with fork-join", 500, 500);
+        camera.setImageWriter(forkJoin).setForkJoin(true).setMultiThreading(2);
+        for (int render = 1; render <= 2; ++render) {
+            forkJoin.reset();
+            camera.renderImage();
+            forkJoin.assertSameAs(reference, "fork-join render " + render);
+        }
+        PixelRecorder threads = new PixelRecorder("basic test with threads", 500, 500);
+        camera.setImageWriter(threads).setForkJoin(false);
+        for (int render = 1; render <= 2; ++render) {
+            threads.reset();
+            camera.renderImage();
+            threads.assertSameAs(reference, "threads render " + render);
+        }
+        forkJoin.writeToImage();
+    }
+
+    @Test
+    public void rayPacketsTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setRayTracer(new RayTracerBasic(scene))
+                .setPrintInterval(0);
+        PixelRecorder reference = new PixelRecorder("basic test with ray packets", 500, 500);
+        camera.setImageWriter(reference).renderImage();
+
+        // the packets find the same intersections as the rays one by one, by tiles and by fork-join
+        PixelRecorder packets = new PixelRecorder("basic test with ray packets", 500, 500);
+        camera.setImageWriter(packets).setRayPackets(8).setMultiThreading(3, 32).renderImage();
+        packets.assertSameAs(reference, "packet render by tiles");
+        packets.reset();
+        camera.setForkJoin(true).renderImage();
+        packets.assertSameAs(reference, "packet render by fork-join");
+        packets.writeToImage();
+    }
+
+    @Test
+    public void compiledSceneTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), 0.1)) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add( //
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(20, 20, 20)) //
+                        .setMaterial(new Material().withKd(0.5).withKr(0.3)),
+                new Sphere(30d, new Point(-40, -20, -100)).setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().withKd(0.4).withKs(0.3).withShininess(100)),
+                new Triangle(new Point(0, -50, -120), new Point(80, -50, -120), new Point(40, 30, -120))
+                        .setEmission(new Color(60, 20, 20)).setMaterial(new Material().withKd(0.5).withKs(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(-50, 50, 50)));
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(200, 200) //
+                .setImageWriter(new ImageWriter("compiled scene test", 300, 300))
+                .setRayTracer(new RayTracerBasic(scene.compile()))
+                .setPrintInterval(0);
+
+        camera.renderImage();
+        camera.writeToImage();
+
+        // the geometries that are added after the compilation are rendered as well
+        scene.geometries.add(new Sphere(15d, new Point(30, 20, -80)).setEmission(new Color(BLUE)));
+        PixelRecorder compiled = new PixelRecorder("compiled scene test", 300, 300);
+        camera.setImageWriter(compiled).setMultiThreading(3, 32).renderImage();
+        Scene reference = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(scene.ambientLight)
+                .setBackground(scene.background)
+                .setGeometries(scene.geometries)
+                .setLights(scene.lights).build();
+        PixelRecorder expected = new PixelRecorder("compiled scene test", 300, 300);
+        camera.setImageWriter(expected).setRayTracer(new RayTracerBasic(reference)).renderImage();
+        compiled.assertSameAs(expected, "render after a change of the compiled scene");
+
+        // the compiled geometries are kept while other scenes and geometries are changed
+        Intersectable current = scene.getRenderGeometries();
+        Scene other = new Scene.SceneBuilder("Other scene").build();
+        other.geometries.add(new Sphere(10d, new Point(0, 0, -50)).setMaterial(new Material().withKd(0.5)));
+        other.compile().getRenderGeometries();
+        assertSame(current, scene.getRenderGeometries(), "A change of another scene must not compile the scene again");
+    }
+
+    @Test
+    public void progressiveTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        int[] passes = {0};
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setImageWriter(new ImageWriter("basic test progressive", 500, 500))
+                .setRayTracer(new RayTracerBasic(scene))
+                .setAntiAliasingFactor(4)
+                .setMultiThreading(3, 16)
+                .setProgressive(0, 20);
+        camera.setPassListener(pass -> {
+            // the preview of the first pass
+            if (pass == 1) camera.writeToImage();
+            passes[0] = pass;
+        });
+
+        // the edge of the sphere needs more samples than the cells of the grid, until it converges
+        camera.renderImage();
+        int converged = passes[0];
+        assertTrue(converged > 16, "The passes must go on beyond the cells of the grid");
+        camera.writeToImage();
+        camera.setPassListener(pass -> passes[0] = pass);
+        // a smaller tolerance needs more passes
+        camera.setImageWriter(new ImageWriter("basic test progressive", 500, 500)).setProgressive(0, 10).renderImage();
+        assertTrue(passes[0] > converged, "A smaller tolerance must take more passes");
+
+        // without a tolerance, the passes go on until the time budget is spent
+        camera.setImageWriter(new ImageWriter("basic test progressive", 100, 100)).setProgressive(0.5, 0);
+        long start = System.nanoTime();
+        camera.renderImage();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertTrue(passes[0] > 16, "The passes must go on beyond the cells of the grid");
+        assertTrue(seconds < 1, "The render must stop by the time budget, took " + seconds + "s");
+
+        // without a time budget and a tolerance, every cell of the grid is sampled once
+        camera.setProgressive(0, 0).renderImage();
+        assertEquals(16, passes[0], "Wrong amount of passes");
+    }
+
+    @Test
+    public void jitteredAntiAliasingTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        // a jittered pattern needs fewer samples than the regular grid
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setImageWriter(new ImageWriter("antiAliasing jittered test", 500, 500))
+                .setRayTracer(new RayTracerBasic(scene))
+                .setAntiAliasingFactor(4)
+                .setSamplePattern(SamplePattern.JITTERED);
+
+        camera.renderImage();
+        camera.writeToImage();
+    }
+
+    @Test
+    public void adaptiveTilesTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), //
+                        new Double3(1, 1, 1))) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)));
+        // the corners that neighbouring pixels of a tile share are traced once
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setImageWriter(new ImageWriter("adaptive test with tiles", 500, 500))
+                .setRayTracer(new RayTracerBasic(scene))
+                .setUseAdaptive(true)
+                .setMaxAdaptiveLevel(4)
+                .setMultiThreading(3, 16);
+
+        camera.renderImage();
+        camera.writeToImage();
+
+        // the samples cached by the former render must not be used once the scene changes
+        scene.geometries.add(new Sphere(20d, new Point(30, 30, -60)));
+        PixelRecorder reference = new PixelRecorder("adaptive test with tiles", 500, 500);
+        new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(500, 500) //
+                .setImageWriter(reference)
+                .setRayTracer(new RayTracerBasic(scene))
+                .setUseAdaptive(true)
+                .setMaxAdaptiveLevel(4)
+                .setPrintInterval(0)
+                .renderImage();
+        PixelRecorder tiles = new PixelRecorder("adaptive test with tiles", 500, 500);
+        camera.setImageWriter(tiles).renderImage();
+        tiles.assertSameAs(reference, "adaptive render after a scene change");
+    }
+
+    @Test
+    public void secondaryRaysTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), 0.1)) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add( //
+                new Sphere(50d, new Point(0, 0, -100)).setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().withKd(0.4).withKs(0.3).withShininess(100).withKt(0.3)),
+                new Sphere(25d, new Point(0, 0, -100)).setEmission(new Color(20, 20, 20)) //
+                        .setMaterial(new Material().withKd(0.2).withKr(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(-50, -50, 50)));
+        RayTracerBasic rayTracer = new RayTracerBasic(scene);
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(200, 200) //
+                .setImageWriter(new ImageWriter("secondary rays test", 100, 100))
+                .setRayTracer(rayTracer)
+                .setPrintInterval(0);
+
+        // the reflected and refracted rays of the iterative tracing are counted
+        camera.renderImage();
+        assertTrue(rayTracer.getSecondaryRays() > 0, "Secondary rays are not counted");
+        rayTracer.resetStatistics();
+        assertEquals(0, rayTracer.getSecondaryRays(), "Statistics are not reset");
+    }
+
+    @Test
+    public void russianRouletteTest() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(255, 191, 191), 0.1)) //
+                .setBackground(new Color(BLACK)).build();
+
+        scene.geometries.add( //
+                new Sphere(50d, new Point(0, 0, -100)).setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().withKd(0.4).withKs(0.3).withShininess(100).withKt(0.3)),
+                new Sphere(25d, new Point(0, 0, -100)).setEmission(new Color(20, 20, 20)) //
+                        .setMaterial(new Material().withKd(0.2).withKr(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(-50, -50, 50)));
+        RayTracerBasic rayTracer = new RayTracerBasic(scene);
+        Camera camera = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPDistance(100) //
+                .setVPSize(200, 200) //
+                .setImageWriter(new ImageWriter("russian roulette test", 100, 100))
+                .setRayTracer(rayTracer)
+                .setPrintInterval(0);
+
+        camera.renderImage();
+        long traced = rayTracer.getSecondaryRays();
+        assertEquals(0, rayTracer.getSavedRays(), "Rays are saved without Russian roulette");
+
+        // with Russian roulette some of the low weight rays are not traced
+        rayTracer.resetStatistics();
+        rayTracer.setRussianRoulette(0.5);
+        camera.renderImage();
+        camera.writeToImage();
+        assertTrue(rayTracer.getSavedRays() > 0, "Russian roulette terminated no rays");
+        assertTrue(rayTracer.getSecondaryRays() < traced, "Russian roulette traced more rays");
+    }
+
+    /**
+     * An image writer that records the colors of the pixels and the threads that wrote them,
+     * to compare the renders of different modes
+     */
+    private static class PixelRecorder extends ImageWriter {
+        /** The packed RGB colors of the pixels, row by row, -1 for a pixel that is not written */
+        private final int[] colors;
+        /** The threads that wrote the pixels */
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Constructs a recording image writer
+         *
+         * @param imageName the name of the image
+         * @param nX        the amount of the columns
+         * @param nY        the amount of the rows
+         */
+        PixelRecorder(String imageName, int nX, int nY) {
+            super(imageName, nX, nY);
+            colors = new int[nX * nY];
+            reset();
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            super.writePixel(xIndex, yIndex, color);
+            colors[yIndex * getNx() + xIndex] = color.getRGB();
+            threads.add(Thread.currentThread());
+        }
+
+        /** Forgets the recorded pixels and threads, before another render */
+        void reset() {
+            Arrays.fill(colors, -1);
+            threads.clear();
+        }
+
+        /**
+         * Checks that the render wrote every pixel, off the rendering thread, with the same
+         * color as a reference render
+         *
+         * @param reference the reference render
+         * @param render    the name of the checked render
+         */
+        void assertSameAs(PixelRecorder reference, String render) {
+            assertFalse(threads.isEmpty() || threads.contains(Thread.currentThread()),
+                    render + " did not run on its own threads");
+            for (int pixel = 0; pixel < colors.length; ++pixel)
+                assertEquals(reference.colors[pixel], colors[pixel],
+                        render + " differs at pixel (" + pixel % getNx() + "," + pixel / getNx() + ")");
+        }
+    }
+}
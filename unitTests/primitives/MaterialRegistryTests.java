@@ -0,0 +1,67 @@
+package primitives;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Unit tests for primitives.MaterialRegistry class */
+class MaterialRegistryTests {
+
+    /** Test method for {@link primitives.MaterialRegistry#indexOf(Material)}. */
+    @Test
+    void testIndexOf() {
+        MaterialRegistry registry = new MaterialRegistry();
+        Material material = new Material().withKd(0.2).withKs(0.3).withShininess(30);
+        int index = registry.indexOf(material);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Equal materials are interned into the same instance
+        assertEquals(index, registry.indexOf(new Material().withKd(0.2).withKs(0.3).withShininess(30)),
+                "Equal materials must share one index");
+        assertSame(material, registry.get(index), "Equal materials must share one instance");
+        // TC02: Different materials are interned into different instances
+        assertNotEquals(index, registry.indexOf(new Material().withKd(0.2).withKs(0.3).withShininess(31)),
+                "Different materials must not share an index");
+        assertEquals(2, registry.size(), "Wrong amount of the interned materials");
+        // TC03: A shared material cannot be changed, its with methods return a changed copy
+        Material changed = registry.get(index).withKd(0.5);
+        assertEquals(0.2, registry.get(index).getKd().getD1(), "A shared material must not be changed");
+        assertEquals(0.5, changed.getKd().getD1(), "Wrong coefficient of the changed copy");
+        assertEquals(0.3, changed.getKs().getD1(), "The changed copy must keep the other coefficients");
+        // TC04: The specular reflection is known per material
+        assertTrue(material.isSpecular(), "The material has a specular reflection");
+        assertFalse(Material.NONE.isSpecular(), "The empty material has no specular reflection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Registries are independent of each other
+        assertEquals(0, new MaterialRegistry().indexOf(new Material().withKd(0.7)),
+                "A new registry must start from the first index");
+        // TC12: Materials that differ by less than the tolerance of Double3 are not merged
+        assertNotEquals(index, registry.indexOf(new Material().withKd(0.2 + 1e-12).withKs(0.3).withShininess(30)),
+                "Materials that differ must not be merged");
+    }
+
+    /** Test method for {@link primitives.MaterialRegistry#intern(Material)}. */
+    @Test
+    void testIntern() {
+        Material material = MaterialRegistry.intern(new Material().withKd(0.25).withKs(0.35).withShininess(20));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An equal material is replaced by the shared instance
+        assertSame(material, MaterialRegistry.intern(new Material().withKd(0.25).withKs(0.35).withShininess(20)),
+                "Equal materials must be shared");
+        // TC02: A different material is not replaced
+        Material other = new Material().withKd(0.25).withKs(0.35).withShininess(21);
+        assertSame(other, MaterialRegistry.intern(other), "A different material must not be replaced");
+        // TC03: The materials of the geometries are shared
+        Sphere sphere = new Sphere(1, new Point(0, 0, 0));
+        sphere.setMaterial(new Material().withKd(0.25).withKs(0.35).withShininess(20));
+        assertSame(material, sphere.getMaterial(), "The materials of the geometries must be shared");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Materials that differ by less than the tolerance of Double3 are not equal
+        assertNotEquals(material, new Material().withKd(0.25 + 1e-12).withKs(0.35).withShininess(20),
+                "Materials that differ must not be equal");
+    }
+}
@@ -0,0 +1,33 @@
+package primitives;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for primitives.Util class */
+class UtilTests {
+
+    /** Test method for {@link primitives.Util#pow(double, int)}. */
+    @Test
+    public void testPow() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Odd exponent
+        assertEquals(-243, Util.pow(-3, 5), "Wrong power by an odd exponent");
+        // TC02: Even exponent
+        assertEquals(6561, Util.pow(-3, 8), "Wrong power by an even exponent");
+        // TC03: Large exponent, as a shininess of a material
+        assertEquals(Math.pow(0.95, 100), Util.pow(0.95, 100), 1e-12, "Wrong power by a large exponent");
+        // TC04: Negative exponent
+        assertEquals(0.125, Util.pow(2, -3), "Wrong power by a negative exponent");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Exponent 0
+        assertEquals(1, Util.pow(7.5, 0), "Any number raised to the power of 0 must be 1");
+        // TC12: Exponent 1
+        assertEquals(7.5, Util.pow(7.5, 1), "Any number raised to the power of 1 must be itself");
+        // TC13: Base 0
+        assertEquals(0, Util.pow(0, 3), "0 raised to a positive power must be 0");
+        assertEquals(1, Util.pow(0, 0), "0 raised to the power of 0 must be 1");
+        assertEquals(Double.POSITIVE_INFINITY, Util.pow(0, -1), "0 raised to a negative power must be infinite");
+    }
+}
@@ -129,4 +129,18 @@ class VectorTests {
                 "normalized vector is not iun the same direction");
         assertEquals(new Vector(0, 0.6, 0.8), n, "wrong normalized vector");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link primitives.Vector#direction(Point, Point)}. */
+    @Test
+    public void testDirection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Simple test - the unit vector from one point to the other
+        assertEquals(new Vector(0, 0.6, 0.8), Vector.direction(new Point(1, 1, 1), new Point(1, 4, 5)),
+                "wrong direction between points");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The same points have no direction
+        assertThrows(IllegalArgumentException.class, () -> Vector.direction(new Point(1, 2, 3), new Point(1, 2, 3)),
+                "direction between the same points must throw exception");
+    }
+}
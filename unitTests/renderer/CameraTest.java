@@ -2,10 +2,20 @@ package renderer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.jupiter.api.Test;
 
+import geometries.Sphere;
 import primitives.*;
 import renderer.Camera;
+import scene.Scene;
 
 /**
  * Testing Camera Class
@@ -57,4 +67,112 @@ class CameraTest {
 				camera.setVPSize(8, 8).constructRay(4, 4, 1, 0), badRay);
 
     }
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} on a shared executor.
+	 */
+	@Test
+	void testRenderImageOnExecutor() {
+		AtomicReference<Thread> renderingThread = new AtomicReference<>();
+		CountDownLatch taskFailed = new CountDownLatch(1);
+		Scene scene = new Scene.SceneBuilder("Test scene").build();
+		// the geometry fails in the tasks of the executor only, the rendering thread waits for the failure
+		scene.geometries.add(new Sphere(5, new Point(0, 0, -10)) {
+			@Override
+			protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+				if (Thread.currentThread() != renderingThread.get()) {
+					taskFailed.countDown();
+					throw new IllegalStateException("Broken geometry");
+				}
+				try {
+					taskFailed.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.findClosestIntersectionHelper(ray, maxDistance);
+			}
+		});
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0))
+					.setVPDistance(10).setVPSize(4, 4)
+					.setImageWriter(new ImageWriter("executor test", 32, 32))
+					.setRayTracer(new RayTracerBasic(scene))
+					.setExecutor(pool).setMultiThreading(2, 8).setPrintInterval(0);
+
+			// ============ Equivalence Partitions Tests ==============
+			// EP01: The exception of a task is thrown by the render, instead of waiting for its tiles
+			IllegalStateException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				renderingThread.set(Thread.currentThread());
+				return assertThrows(IllegalStateException.class, camera::renderImage);
+			});
+			assertEquals("Broken geometry", exception.getMessage(), "Wrong exception of the render");
+
+			// EP02: An interrupted render fails, and the thread stays interrupted
+			Camera emptyCamera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0))
+					.setVPDistance(10).setVPSize(4, 4)
+					.setImageWriter(new ImageWriter("executor test", 32, 32))
+					.setRayTracer(new RayTracerBasic(new Scene.SceneBuilder("Empty scene").build()))
+					.setExecutor(pool).setMultiThreading(2, 8).setPrintInterval(0);
+			Thread.currentThread().interrupt();
+			assertThrows(IllegalStateException.class, emptyCamera::renderImage, "Interrupted render must fail");
+			assertTrue(Thread.interrupted(), "The interrupt status of the rendering thread is lost");
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} on a shared executor, when a task
+	 * fails while another task is still rendering.
+	 */
+	@Test
+	void testRenderImageOnExecutorWaitsForTasks() {
+		AtomicReference<Thread> renderingThread = new AtomicReference<>();
+		AtomicBoolean failing = new AtomicBoolean(), slow = new AtomicBoolean(), slowFinished = new AtomicBoolean();
+		CountDownLatch slowStarted = new CountDownLatch(1), taskFailed = new CountDownLatch(1);
+		Scene scene = new Scene.SceneBuilder("Test scene").build();
+		// one task fails while the other one is still in the middle of its tile
+		scene.geometries.add(new Sphere(5, new Point(0, 0, -10)) {
+			@Override
+			protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance) {
+				try {
+					if (Thread.currentThread() == renderingThread.get())
+						taskFailed.await(5, TimeUnit.SECONDS);
+					else if (failing.compareAndSet(false, true)) {
+						slowStarted.await(5, TimeUnit.SECONDS);
+						taskFailed.countDown();
+						throw new IllegalStateException("Broken geometry");
+					} else if (slow.compareAndSet(false, true)) {
+						slowStarted.countDown();
+						Thread.sleep(500);
+						slowFinished.set(true);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.findClosestIntersectionHelper(ray, maxDistance);
+			}
+		});
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0))
+					.setVPDistance(10).setVPSize(4, 4)
+					.setImageWriter(new ImageWriter("executor test", 32, 32))
+					.setRayTracer(new RayTracerBasic(scene))
+					.setExecutor(pool).setMultiThreading(2, 8).setPrintInterval(0);
+
+			// ============ Equivalence Partitions Tests ==============
+			// EP01: The render fails only after the running task has finished its tile
+			IllegalStateException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				renderingThread.set(Thread.currentThread());
+				return assertThrows(IllegalStateException.class, camera::renderImage);
+			});
+			assertEquals("Broken geometry", exception.getMessage(), "Wrong exception of the render");
+			assertTrue(slowFinished.get(), "The render ended while a task was still rendering");
+			assertEquals(0, exception.getSuppressed().length, "A task failed after the end of the render");
+		} finally {
+			pool.shutdownNow();
+		}
+	}
 }
@@ -33,4 +33,27 @@ public class ImageWriterTest {
         imageWriter.writeToImage();
     }
 
+    /**
+     * Test the HDR buffer of the ImageWriter class - re-exposing and tone mapping
+     * the image without writing the pixels again.
+     */
+    @Test
+    void testHdr() {
+        ImageWriter imageWriter = new ImageWriter("hdr", 2, 1).setHdr(true);
+        imageWriter.writePixel(0, 0, new Color(510, 255, 100));
+        imageWriter.writePixel(1, 0, new Color(1000, 0, 0));
+
+        // TC01: default exposure without tone mapping clips like the quantized image
+        imageWriter.toneMap();
+        assertEquals(255 << 16 | 255 << 8 | 100, imageWriter.getRGB(0, 0), "Bad clipped HDR pixel");
+
+        // TC02: lower exposure brings the clipped component back into the range
+        imageWriter.setExposure(0.5).toneMap();
+        assertEquals(255 << 16 | 127 << 8 | 50, imageWriter.getRGB(0, 0), "Bad exposed HDR pixel");
+
+        // TC03: Reinhard tone mapping never clips
+        imageWriter.setExposure(1).setToneMapping(ToneMapping.REINHARD).toneMap();
+        assertEquals(170 << 16 | 127 << 8 | 71, imageWriter.getRGB(0, 0), "Bad tone mapped HDR pixel");
+        assertTrue((imageWriter.getRGB(1, 0) >> 16) < 255, "Tone mapping clipped a bright pixel");
+    }
 }
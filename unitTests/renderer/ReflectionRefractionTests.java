@@ -34,9 +34,9 @@ public class ReflectionRefractionTests {
 
         scene.geometries.add( //
                 new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE)) //
-                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                        .setMaterial(new Material().withKd(0.4).withKs(0.3).withShininess(100).withKt(0.3)),
                 new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)));
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(100)));
         scene.lights.add( //
                 new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2)) //
                         .setKl(0.0004).setKq(0.0000006));
@@ -59,18 +59,18 @@ public class ReflectionRefractionTests {
 
         scene.geometries.add( //
                 new Sphere(400d, new Point(-950, -900, -1000)).setEmission(new Color(0, 50, 100)) //
-                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)
-                                .setKt(new Double3(0.5, 0, 0))),
+                        .setMaterial(new Material().withKd(0.25).withKs(0.25).withShininess(20)
+                                .withKt(new Double3(0.5, 0, 0))),
                 new Sphere(200d, new Point(-950, -900, -1000)).setEmission(new Color(100, 50, 20)) //
-                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)),
+                        .setMaterial(new Material().withKd(0.25).withKs(0.25).withShininess(20)),
                 new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
                         new Point(670, 670, 3000)) //
                         .setEmission(new Color(20, 20, 20)) //
-                        .setMaterial(new Material().setKr(1)),
+                        .setMaterial(new Material().withKr(1)),
                 new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
                         new Point(-1500, -1500, -2000)) //
                         .setEmission(new Color(20, 20, 20)) //
-                        .setMaterial(new Material().setKr(new Double3(0.5, 0, 0.4))));
+                        .setMaterial(new Material().withKr(new Double3(0.5, 0, 0.4))));
 
         scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4)) //
                 .setKl(0.00001).setKq(0.000005));
@@ -97,11 +97,11 @@ public class ReflectionRefractionTests {
         scene.geometries.add( //
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
                 new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
                 new Sphere(30d, new Point(60, 50, -50)).setEmission(new Color(BLUE)) //
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setKt(0.6)));
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30).withKt(0.6)));
 
         scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1)) //
                 .setKl(4E-5).setKq(2E-7));
@@ -134,17 +134,17 @@ public class ReflectionRefractionTests {
 
         scene.geometries.add(
                 new Triangle(new Point(50, 20, -10), new Point(0, -100, -50), new Point(-50, 20, -10)).setEmission(new Color(205, 133, 63))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30)),
                 new Triangle(new Point(50, 20, -10), new Point(0, -100, -50), new Point(0, 20, -90)).setEmission(new Color(205, 133, 63))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30)),
                 new Triangle(new Point(0, 20, -90), new Point(0, -100, -50), new Point(-50, 20, -10)).setEmission(new Color(205, 133, 63))
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30)),
 
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
                 new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(60)), //
 
                 new Polygon(
                         new Point(35, 37, -85),
@@ -153,11 +153,11 @@ public class ReflectionRefractionTests {
                         new Point(35, 57, -85)
                 ).setEmission(new Color(yellow)), //
                 new Sphere(31d, new Point(0, 70, -100)).setEmission(new Color(PINK)) // Yellow sphere
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30)),
                 new Sphere(33d, new Point(-27, 40, -100)).setEmission(new Color(255, 0, 0)) // Red sphere
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30)),
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30)),
                 new Sphere(33d, new Point(27, 40, -100)).setEmission(new Color(127, 63, 0)) // Green sphere
-                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30))
+                        .setMaterial(new Material().withKd(0.2).withKs(0.2).withShininess(30))
         );
 
         scene.lights.add(new SpotLight(new Color(245, 222, 179), new Point(75, 20, 100), new Vector(0, 0, -4))
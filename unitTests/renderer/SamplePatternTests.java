@@ -0,0 +1,75 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for renderer.SamplePattern enum */
+class SamplePatternTests {
+
+    /** Test method for {@link renderer.SamplePattern#sample(int, int, int, int)}. */
+    @Test
+    public void testSample() {
+        int side = 4;
+        int seed = SamplePattern.seed(7, 3);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: all the samples of all the patterns are in the unit square
+        for (SamplePattern pattern : SamplePattern.values())
+            for (int index = 0; index < side * side; ++index)
+                for (int dimension = 0; dimension < 2; ++dimension) {
+                    double value = pattern.sample(index, side, dimension, seed);
+                    assertTrue(value >= 0 && value < 1, pattern + " sample out of the unit square");
+                }
+
+        // TC02: the sequences are deterministic for a seed
+        assertEquals(SamplePattern.HALTON.sample(5, side, 1, seed), SamplePattern.HALTON.sample(5, side, 1, seed),
+                "Halton sequence is not deterministic");
+        assertEquals(SamplePattern.SOBOL.sample(5, side, 1, seed), SamplePattern.SOBOL.sample(5, side, 1, seed),
+                "Sobol sequence is not deterministic");
+
+        // TC03: the first side * side scrambled Sobol samples cover every cell of the grid once
+        boolean[] cells = new boolean[side * side];
+        for (int index = 0; index < side * side; ++index) {
+            int col = (int) (SamplePattern.SOBOL.sample(index, side, 0, seed) * side);
+            int row = (int) (SamplePattern.SOBOL.sample(index, side, 1, seed) * side);
+            assertFalse(cells[row * side + col], "Sobol samples share a cell");
+            cells[row * side + col] = true;
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the grid is the centers of the cells
+        assertEquals(0.125, SamplePattern.GRID.sample(0, side, 0, seed), 1e-12, "Wrong grid sample");
+        assertEquals(0.875, SamplePattern.GRID.sample(side * side - 1, side, 1, seed), 1e-12, "Wrong grid sample");
+    }
+
+    /** Test method for {@link renderer.SamplePattern#offset(int, int, int, int)}. */
+    @Test
+    public void testOffset() {
+        int side = 4;
+        int seed = SamplePattern.seed(7, 3);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the samples beyond the grid stay in the pixel
+        for (SamplePattern pattern : SamplePattern.values())
+            for (int index = side * side; index < 10 * side * side; ++index)
+                for (int dimension = 0; dimension < 2; ++dimension) {
+                    double offset = pattern.offset(index, side, dimension, seed);
+                    assertTrue(offset >= -side / 2d && offset < side / 2d, pattern + " sample out of the pixel");
+                }
+
+        // TC02: the grid patterns continue by repeatable positions in the cell of the index modulo the cells
+        for (SamplePattern pattern : new SamplePattern[]{SamplePattern.GRID, SamplePattern.JITTERED})
+            for (int index = side * side; index < 10 * side * side; ++index) {
+                int cell = index % (side * side);
+                double col = pattern.offset(index, side, 0, seed);
+                double row = pattern.offset(index, side, 1, seed);
+                assertEquals(cell % side, (int) Math.floor(col + side / 2d), pattern + " sample out of its cell");
+                assertEquals(cell / side, (int) Math.floor(row + side / 2d), pattern + " sample out of its cell");
+                assertEquals(col, pattern.offset(index, side, 0, seed), pattern + " sample is not repeatable");
+            }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the grid samples of the next round are not the centers of the cells again
+        assertNotEquals(SamplePattern.GRID.offset(0, side, 0, seed),
+                SamplePattern.GRID.offset(side * side, side, 0, seed), "The grid must not repeat its samples");
+    }
+}
@@ -18,8 +18,8 @@ import scene.Scene;
 public class ShadowTests {
     private Intersectable sphere = new Sphere(60d, new Point(0, 0, -200))                                         //
             .setEmission(new Color(BLUE))                                                                                  //
-            .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30));
-    private Material trMaterial = new Material().setKd(0.5).setKs(0.5).setShininess(30);
+            .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(30));
+    private Material trMaterial = new Material().withKd(0.5).withKs(0.5).withShininess(30);
 
     private Scene scene = new Scene.SceneBuilder("Test scene").build();
     private Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))   //
@@ -100,12 +100,12 @@ public class ShadowTests {
         scene.geometries.add( //
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKs(0.8).setShininess(60)), //
+                        .setMaterial(new Material().withKs(0.8).withShininess(60)), //
                 new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
-                        .setMaterial(new Material().setKs(0.8).setShininess(60)), //
+                        .setMaterial(new Material().withKs(0.8).withShininess(60)), //
                 new Sphere(30d, new Point(0, 0, -11)) //
                         .setEmission(new Color(BLUE)) //
-                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)) //
+                        .setMaterial(new Material().withKd(0.5).withKs(0.5).withShininess(30)) //
         );
         scene.lights.add( //
                 new SpotLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(-1, -1, -4)) //
@@ -0,0 +1,177 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Map;
+
+import static jdk.incubator.vector.VectorOperators.ABS;
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.IS_NAN;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.MAX;
+import static jdk.incubator.vector.VectorOperators.MIN;
+import static jdk.incubator.vector.VectorOperators.SQRT;
+
+/**
+ * The leaf kernel vectorized by the vector API (the incubator module {@code jdk.incubator.vector}):
+ * one ray is intersected with as many spheres, and then triangles, of a leaf at once as the
+ * preferred vectors of the processor hold (e.g. 4 on AVX2, 8 on AVX-512).<br/>
+ * Every lane runs the same arithmetic, in the same order, as {@link Sphere} and {@link Triangle}
+ * (a missed lane, or an empty one, is set to positive infinity), so the intersections are
+ * exactly the same as the ones of the scalar kernel.<br/>
+ * The kernel is compiled and loaded apart from the rest of the geometries, only when the
+ * module is available - see {@link LeafKernel#of(List, Map)}.
+ */
+final class VectorLeafKernel extends LeafKernel {
+    /** The vectors of the kernel - the widest ones of the processor */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** The amount of the geometries that the kernel intersects at once */
+    static final int LANES = SPECIES.length();
+    /** The largest magnitude that is aligned to zero, as by {@link primitives.Util#alignZero(double)} */
+    private static final double ZERO = 0x1p-40;
+    /** The least amount of the geometries of a kind in a leaf that are intersected by vectors */
+    private static final int MIN_LANES = LANES / 2;
+    /** The vector of ones */
+    private static final DoubleVector ONE = DoubleVector.broadcast(SPECIES, 1.0);
+
+    /**
+     * Builds the kernel of the leaves of a hierarchy
+     *
+     * @param leaves   the geometries of every leaf
+     * @param ordinals the original order of the geometries of the hierarchy
+     */
+    VectorLeafKernel(List<List<Intersectable>> leaves, Map<Intersectable, Integer> ordinals) {
+        super(leaves, ordinals, LANES);
+    }
+
+    /**
+     * Aligns the lanes that are almost zero to zero, as {@link primitives.Util#alignZero(double)}
+     *
+     * @param v the numbers
+     * @return the aligned numbers
+     */
+    private static DoubleVector alignZero(DoubleVector v) {
+        return v.blend(0.0, v.lanewise(ABS).compare(LT, ZERO));
+    }
+
+    @Override
+    GeoPoint findClosestIntersection(Ray ray, double maxDistance, int leaf) {
+        // a vector of mostly empty lanes costs more than the geometries one by one
+        if (sphereEnd[leaf] - sphereStart[leaf] < MIN_LANES && triangleEnd[leaf] - triangleStart[leaf] < MIN_LANES)
+            return super.findClosestIntersection(ray, maxDistance, leaf);
+
+        // one method for all the lanes - the vectors stay in the registers only within a compiled method
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        DoubleVector px = DoubleVector.broadcast(SPECIES, p0.getX());
+        DoubleVector py = DoubleVector.broadcast(SPECIES, p0.getY());
+        DoubleVector pz = DoubleVector.broadcast(SPECIES, p0.getZ());
+        DoubleVector dx = DoubleVector.broadcast(SPECIES, dir.getX());
+        DoubleVector dy = DoubleVector.broadcast(SPECIES, dir.getY());
+        DoubleVector dz = DoubleVector.broadcast(SPECIES, dir.getZ());
+
+        double closest = Double.POSITIVE_INFINITY;
+        int bestOrdinal = -1;
+        int sphere = -1, triangle = -1;
+
+        // every hit shrinks the maximum distance, so the farther geometries of the next lanes are
+        // rejected - but not an equally close one, that may still win the tie
+        for (int i = sphereStart[leaf], end = sphereStart[leaf + 1]; i < end; i += LANES) {
+            // as Sphere.closestDistance
+            DoubleVector ux = DoubleVector.fromArray(SPECIES, cx, i).sub(px);
+            DoubleVector uy = DoubleVector.fromArray(SPECIES, cy, i).sub(py);
+            DoubleVector uz = DoubleVector.fromArray(SPECIES, cz, i).sub(pz);
+            DoubleVector tm = ux.mul(dx).add(uy.mul(dy)).add(uz.mul(dz));
+            DoubleVector c = ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(DoubleVector.fromArray(SPECIES, radius2, i));
+
+            VectorMask<Double> outside = c.compare(GT, 0.0);
+            DoubleVector th2 = alignZero(tm.mul(tm).sub(c));
+            DoubleVector beyond = tm.sub(maxDistance);
+            VectorMask<Double> miss = outside.and(tm.compare(LE, 0.0))
+                    .or(th2.compare(LE, 0.0))
+                    .or(outside.and(tm.compare(GT, maxDistance)).and(beyond.mul(beyond).compare(GT, th2)));
+            if (miss.allTrue()) continue;
+
+            DoubleVector th = th2.lanewise(SQRT);
+            DoubleVector q = tm.sub(th).blend(tm.add(th), tm.compare(GE, 0.0));
+            DoubleVector cq = c.div(q);
+            DoubleVector t1 = q.lanewise(MAX, cq);
+            DoubleVector t2 = q.lanewise(MIN, cq);
+
+            // the nearer point (t2 <= t1) is the closest one if it is in front of the ray head
+            VectorMask<Double> near = t2.compare(GT, 0.0).and(alignZero(t2.sub(maxDistance)).compare(LE, 0.0));
+            VectorMask<Double> far = t1.compare(GT, 0.0).and(alignZero(t1.sub(maxDistance)).compare(LE, 0.0));
+            DoubleVector t = t1.blend(Double.POSITIVE_INFINITY, far.not().or(miss)).blend(t2, near.andNot(miss));
+
+            double min = t.reduceLanes(MIN);
+            if (min == Double.POSITIVE_INFINITY || min > closest) continue;
+            // the lanes are in the original order, the last one of the equally close lanes wins
+            int lane = 63 - Long.numberOfLeadingZeros(t.compare(EQ, min).toLong());
+            closest = min;
+            maxDistance = min * CLOSEST_DISTANCE_MARGIN;
+            bestOrdinal = sphereOrdinals[i + lane];
+            sphere = i + lane;
+        }
+
+        for (int i = triangleStart[leaf], end = triangleStart[leaf + 1]; i < end; i += LANES) {
+            // as Triangle.intersect
+            DoubleVector e1x = DoubleVector.fromArray(SPECIES, this.e1x, i);
+            DoubleVector e1y = DoubleVector.fromArray(SPECIES, this.e1y, i);
+            DoubleVector e1z = DoubleVector.fromArray(SPECIES, this.e1z, i);
+            DoubleVector e2x = DoubleVector.fromArray(SPECIES, this.e2x, i);
+            DoubleVector e2y = DoubleVector.fromArray(SPECIES, this.e2y, i);
+            DoubleVector e2z = DoubleVector.fromArray(SPECIES, this.e2z, i);
+
+            // h = dir x e2, the determinant is e1 * h
+            DoubleVector hx = dy.mul(e2z).sub(dz.mul(e2y));
+            DoubleVector hy = dz.mul(e2x).sub(dx.mul(e2z));
+            DoubleVector hz = dx.mul(e2y).sub(dy.mul(e2x));
+            DoubleVector det = e1x.mul(hx).add(e1y.mul(hy)).add(e1z.mul(hz));
+            // the ray is parallel to the plane of the triangle
+            VectorMask<Double> miss = det.lanewise(ABS).compare(LT, ZERO);
+            DoubleVector invDet = ONE.div(det);
+
+            // s = p0 - p1
+            DoubleVector sx = px.sub(DoubleVector.fromArray(SPECIES, ax, i));
+            DoubleVector sy = py.sub(DoubleVector.fromArray(SPECIES, ay, i));
+            DoubleVector sz = pz.sub(DoubleVector.fromArray(SPECIES, az, i));
+            DoubleVector u = alignZero(sx.mul(hx).add(sy.mul(hy)).add(sz.mul(hz)).mul(invDet));
+            miss = miss.or(u.compare(LE, 0.0)).or(u.compare(GE, 1.0)).or(u.test(IS_NAN));
+            if (miss.allTrue()) continue;
+
+            // q = s x e1
+            DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+            DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+            DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+            DoubleVector v = alignZero(dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet));
+            miss = miss.or(v.compare(LE, 0.0)).or(alignZero(u.add(v).sub(1.0)).compare(GE, 0.0));
+
+            DoubleVector t = alignZero(e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(invDet));
+            miss = miss.or(t.compare(LE, 0.0)).or(alignZero(t.sub(maxDistance)).compare(GT, 0.0));
+            t = t.blend(Double.POSITIVE_INFINITY, miss.or(t.test(IS_NAN)));
+
+            double min = t.reduceLanes(MIN);
+            if (min == Double.POSITIVE_INFINITY) continue;
+            int lane = 63 - Long.numberOfLeadingZeros(t.compare(EQ, min).toLong());
+            if (min < closest || min == closest && triangleOrdinals[i + lane] > bestOrdinal) {
+                closest = min;
+                maxDistance = min * CLOSEST_DISTANCE_MARGIN;
+                bestOrdinal = triangleOrdinals[i + lane];
+                triangle = i + lane;
+            }
+        }
+
+        if (triangle >= 0) return triangleHit(ray, closest, triangle);
+        return sphere >= 0 ? sphereHit(ray, closest, sphere) : null;
+    }
+}